@@ -0,0 +1,27 @@
+package com.library.apigateway.cache;
+
+import org.springframework.http.HttpHeaders;
+
+import java.time.Duration;
+import java.time.Instant;
+
+// Réponse GET gardée par la passerelle : statut, en-têtes utiles au client et corps complet
+record CachedResponse(String routeId, String path, int status, HttpHeaders headers, byte[] body,
+		Instant storedAt, Duration ttl) {
+
+	// Estimation de la place occupée en mémoire (corps et en-têtes)
+	int weight() {
+		int size = body.length + path.length() + 64;
+		for (var header : headers.entrySet()) {
+			size += header.getKey().length();
+			for (String value : header.getValue()) {
+				size += value.length();
+			}
+		}
+		return size;
+	}
+
+	String etag() {
+		return headers.getETag();
+	}
+}
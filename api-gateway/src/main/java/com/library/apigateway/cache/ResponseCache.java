@@ -0,0 +1,100 @@
+package com.library.apigateway.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.function.Predicate;
+
+// Réponses GET gardées en mémoire par la passerelle, pour toutes les routes qui utilisent le filtre ResponseCache.
+// Limité en octets (corps et en-têtes) : les réponses les moins utilisées sont évincées au-delà de max-bytes.
+// Chaque réponse expire selon la durée de sa route, réduite par le Cache-Control du service.
+@Component
+public class ResponseCache {
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Value("${gateway.response-cache.max-bytes:64MB}")
+	private DataSize maxBytes;
+
+	// Les réponses plus grosses sont transmises sans être gardées
+	@Value("${gateway.response-cache.max-entry-bytes:1MB}")
+	private DataSize maxEntryBytes;
+
+	private Cache<String, CachedResponse> entries;
+	private Counter invalidatedCounter;
+
+	@PostConstruct
+	void init() {
+		entries = Caffeine.newBuilder()
+				.maximumWeight(maxBytes.toBytes())
+				.weigher((String key, CachedResponse response) -> response.weight())
+				.expireAfter(new Expiry<String, CachedResponse>() {
+					@Override
+					public long expireAfterCreate(String key, CachedResponse response, long currentTime) {
+						return response.ttl().toNanos();
+					}
+
+					@Override
+					public long expireAfterUpdate(String key, CachedResponse response, long currentTime, long currentDuration) {
+						return response.ttl().toNanos();
+					}
+
+					@Override
+					public long expireAfterRead(String key, CachedResponse response, long currentTime, long currentDuration) {
+						return currentDuration;
+					}
+				})
+				.recordStats()
+				.build();
+
+		// cache.gets{result=hit|miss}, cache.evictions, cache.size
+		CaffeineCacheMetrics.monitor(meterRegistry, entries, "gateway.responses");
+		Gauge.builder("gateway.response.cache.hit.ratio", entries, cache -> cache.stats().hitRate())
+				.description("Part des GET servis par le cache de la passerelle")
+				.register(meterRegistry);
+		Gauge.builder("gateway.response.cache.bytes", entries,
+						cache -> cache.policy().eviction().map(eviction -> eviction.weightedSize().orElse(0L)).orElse(0L))
+				.description("Taille des réponses gardées en mémoire (octets)")
+				.baseUnit("bytes")
+				.register(meterRegistry);
+		invalidatedCounter = Counter.builder("gateway.response.cache.invalidated")
+				.description("Réponses retirées du cache après une écriture")
+				.register(meterRegistry);
+	}
+
+	public CachedResponse get(String key) {
+		return entries.getIfPresent(key);
+	}
+
+	public void put(String key, CachedResponse response) {
+		if (response.body().length <= maxEntryBytes.toBytes()) {
+			entries.put(key, response);
+		}
+	}
+
+	public long maxEntryBytes() {
+		return maxEntryBytes.toBytes();
+	}
+
+	// Parcourt les clés : les écritures sont rares devant les lectures, et le cache est borné
+	public void invalidate(Predicate<CachedResponse> affected) {
+		entries.asMap().values().removeIf(response -> {
+			if (affected.test(response)) {
+				invalidatedCounter.increment();
+				return true;
+			}
+			return false;
+		});
+	}
+}
@@ -0,0 +1,314 @@
+package com.library.apigateway.cache;
+
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.PathContainer;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Filtre de route ResponseCache : sert les GET depuis ResponseCache et retire les réponses concernées
+// après un PUT, PATCH, DELETE ou POST d'écriture passé par la même route. Les POST de lecture (readOnlyPosts)
+// n'invalident rien.
+//   filters:
+//     - name: ResponseCache
+//       args:
+//         ttl: 30s
+//         excludedPaths: /api/books/stream, /api/books/changes
+//         readOnlyPosts: /api/books/batch, /api/books/availability/check
+// Cache-Control du client : no-cache ou no-store interrogent le service sans lire le cache.
+// Cache-Control du service : no-store, no-cache et private ne sont pas gardés ; s-maxage (à défaut max-age)
+// réduit la durée, comme pour tout cache partagé.
+// Une réponse est gardée par format demandé (Accept, Accept-Encoding, Accept-Language) ; une réponse qui varie
+// selon un autre en-tête (Vary) n'est pas gardée.
+// If-None-Match est comparé à l'ETag de la réponse gardée (304 sans corps).
+@Component
+public class ResponseCacheGatewayFilterFactory extends AbstractGatewayFilterFactory<ResponseCacheGatewayFilterFactory.Config> {
+
+	public static final String CACHE_STATUS_HEADER = "X-Cache";
+
+	// En-têtes de la réponse du service renvoyés avec une réponse gardée
+	private static final List<String> KEPT_HEADERS = List.of(HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_LANGUAGE,
+			HttpHeaders.CONTENT_ENCODING, HttpHeaders.CACHE_CONTROL, HttpHeaders.ETAG, HttpHeaders.LAST_MODIFIED,
+			HttpHeaders.VARY);
+
+	// Premier segment numérique du chemin : identifiant de la ressource modifiée (/api/books/42/reserve -> 42)
+	private static final Pattern RESOURCE_ID = Pattern.compile("^(.*?/\\d+)(/.*)?$");
+	private static final Pattern MAX_AGE = Pattern.compile("max-age=(\\d+)");
+	private static final Pattern SHARED_MAX_AGE = Pattern.compile("s-maxage=(\\d+)");
+
+	// En-têtes de la requête qui font partie de la clé : une réponse ne peut varier que selon eux
+	private static final List<String> KEY_HEADERS = List.of(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING,
+			HttpHeaders.ACCEPT_LANGUAGE);
+
+	@Autowired
+	private ResponseCache cache;
+
+	public ResponseCacheGatewayFilterFactory() {
+		super(Config.class);
+	}
+
+	@Override
+	public List<String> shortcutFieldOrder() {
+		return List.of("ttl");
+	}
+
+	@Override
+	public GatewayFilter apply(Config config) {
+		List<PathPattern> excluded = patterns(config.getExcludedPaths());
+		List<PathPattern> readOnlyPosts = patterns(config.getReadOnlyPosts());
+		// Avant NettyWriteResponseFilter, comme ModifyResponseBody : le corps de la réponse passe par notre décorateur
+		return new OrderedGatewayFilter((exchange, chain) -> {
+			ServerHttpRequest request = exchange.getRequest();
+			Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+			String routeId = route == null ? "" : route.getId();
+			String path = request.getPath().pathWithinApplication().value();
+
+			if (isWrite(request.getMethod(), request.getPath().pathWithinApplication(), readOnlyPosts)) {
+				return chain.filter(exchange).doFinally(signal -> invalidate(routeId, path));
+			}
+			if (request.getMethod() != HttpMethod.GET || matchesAny(excluded, request.getPath().pathWithinApplication())) {
+				return chain.filter(exchange);
+			}
+
+			String key = key(routeId, request);
+			String requestCacheControl = lower(request.getHeaders().getCacheControl());
+			if (!requestCacheControl.contains("no-cache") && !requestCacheControl.contains("no-store")) {
+				CachedResponse cached = cache.get(key);
+				if (cached != null) {
+					return writeCached(exchange, cached);
+				}
+			}
+			exchange.getResponse().getHeaders().set(CACHE_STATUS_HEADER, "MISS");
+			if (requestCacheControl.contains("no-store")) {
+				return chain.filter(exchange);
+			}
+			return chain.filter(exchange.mutate()
+					.response(capturing(exchange, key, routeId, path, config.getTtl()))
+					.build());
+		}, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+	}
+
+	// Recopie le corps au fil de son envoi au client (le flux n'est pas retardé) et le garde à la fin s'il est complet
+	private ServerHttpResponseDecorator capturing(ServerWebExchange exchange, String key, String routeId, String path,
+			Duration routeTtl) {
+		return new ServerHttpResponseDecorator(exchange.getResponse()) {
+			@Override
+			public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+				Duration ttl = cacheableFor(getStatusCode(), getHeaders(), exchange.getRequest().getHeaders(), routeTtl);
+				long maxBytes = cache.maxEntryBytes();
+				if (ttl == null || getHeaders().getContentLength() > maxBytes) {
+					return super.writeWith(body);
+				}
+				HttpHeaders kept = new HttpHeaders();
+				KEPT_HEADERS.forEach(name -> {
+					List<String> values = getHeaders().get(name);
+					if (values != null) {
+						kept.put(name, new ArrayList<>(values));
+					}
+				});
+				int status = getStatusCode().value();
+				ByteArrayOutputStream copy = new ByteArrayOutputStream();
+				AtomicBoolean tooLarge = new AtomicBoolean();
+				Flux<DataBuffer> tee = Flux.from(body)
+						.doOnNext(buffer -> {
+							if (tooLarge.get()) {
+								return;
+							}
+							if (copy.size() + buffer.readableByteCount() > maxBytes) {
+								// Corps sans Content-Length plus long que la limite : transmis sans être gardé
+								tooLarge.set(true);
+								copy.reset();
+								return;
+							}
+							byte[] bytes = new byte[buffer.readableByteCount()];
+							int position = buffer.readPosition();
+							buffer.read(bytes);
+							buffer.readPosition(position);
+							copy.writeBytes(bytes);
+						})
+						.doOnComplete(() -> {
+							if (!tooLarge.get()) {
+								cache.put(key, new CachedResponse(routeId, path, status, kept, copy.toByteArray(), Instant.now(), ttl));
+							}
+						});
+				return super.writeWith(tee);
+			}
+		};
+	}
+
+	private Mono<Void> writeCached(ServerWebExchange exchange, CachedResponse cached) {
+		ServerHttpResponse response = exchange.getResponse();
+		HttpHeaders headers = response.getHeaders();
+		// Copie des valeurs : la réponse envoyée ne doit pas modifier celle qui est gardée
+		cached.headers().forEach((name, values) -> headers.put(name, new ArrayList<>(values)));
+		headers.set(CACHE_STATUS_HEADER, "HIT");
+		headers.set(HttpHeaders.AGE, String.valueOf(Duration.between(cached.storedAt(), Instant.now()).toSeconds()));
+		if (cached.etag() != null && matches(exchange.getRequest().getHeaders().getIfNoneMatch(), cached.etag())) {
+			response.setStatusCode(HttpStatus.NOT_MODIFIED);
+			headers.remove(HttpHeaders.CONTENT_TYPE);
+			return response.setComplete();
+		}
+		response.setStatusCode(HttpStatusCode.valueOf(cached.status()));
+		headers.setContentLength(cached.body().length);
+		return response.writeWith(Mono.just(response.bufferFactory().wrap(cached.body())));
+	}
+
+	// Écriture sur /api/books/42/... : la fiche 42 (et ses sous-ressources) et les listes (chemins sans identifiant).
+	// Écriture sans identifiant (création, import, opérations groupées) : toutes les réponses de la route.
+	private void invalidate(String routeId, String path) {
+		Matcher matcher = RESOURCE_ID.matcher(path);
+		if (!matcher.matches()) {
+			cache.invalidate(cached -> cached.routeId().equals(routeId));
+			return;
+		}
+		String resource = matcher.group(1);
+		cache.invalidate(cached -> cached.routeId().equals(routeId)
+				&& (cached.path().equals(resource) || cached.path().startsWith(resource + "/")
+						|| !RESOURCE_ID.matcher(cached.path()).matches()));
+	}
+
+	// Durée de conservation d'une réponse, ou null si elle ne doit pas être gardée
+	static Duration cacheableFor(HttpStatusCode status, HttpHeaders response, HttpHeaders request, Duration routeTtl) {
+		if (status == null || status.value() != HttpStatus.OK.value() || response.containsKey(HttpHeaders.SET_COOKIE)) {
+			return null;
+		}
+		String cacheControl = lower(response.getCacheControl());
+		if (cacheControl.contains("no-store") || cacheControl.contains("no-cache") || cacheControl.contains("private")) {
+			return null;
+		}
+		for (String vary : response.getVary()) {
+			if (KEY_HEADERS.stream().noneMatch(vary::equalsIgnoreCase)) {
+				return null;
+			}
+		}
+		// Réponse à une requête authentifiée : gardée seulement si le service l'autorise explicitement
+		if (request.containsKey(HttpHeaders.AUTHORIZATION)
+				&& !cacheControl.contains("public") && !cacheControl.contains("s-maxage")) {
+			return null;
+		}
+		// s-maxage s'adresse aux caches partagés et remplace max-age (RFC 9111, 5.2.2.10)
+		Matcher maxAge = SHARED_MAX_AGE.matcher(cacheControl);
+		if (!maxAge.find()) {
+			maxAge = MAX_AGE.matcher(cacheControl);
+			if (!maxAge.find()) {
+				return routeTtl;
+			}
+		}
+		Duration allowed = Duration.ofSeconds(Long.parseLong(maxAge.group(1)));
+		Duration ttl = allowed.compareTo(routeTtl) < 0 ? allowed : routeTtl;
+		return ttl.isZero() || ttl.isNegative() ? null : ttl;
+	}
+
+	// Comparaison faible des ETag (W/"x" équivaut à "x"), comme pour If-None-Match
+	static boolean matches(List<String> ifNoneMatch, String etag) {
+		String expected = weak(etag);
+		return ifNoneMatch.stream()
+				.flatMap(value -> Arrays.stream(value.split(",")))
+				.map(String::trim)
+				.anyMatch(candidate -> candidate.equals("*") || weak(candidate).equals(expected));
+	}
+
+	private static String weak(String etag) {
+		return etag.startsWith("W/") ? etag.substring(2) : etag;
+	}
+
+	// Une réponse par route, chemin, paramètres et format demandé (type, encodage et langue)
+	static String key(String routeId, ServerHttpRequest request) {
+		StringBuilder key = new StringBuilder(routeId);
+		for (String header : KEY_HEADERS) {
+			key.append(' ').append(String.join(",", request.getHeaders().getOrEmpty(header)));
+		}
+		key.append(' ').append(request.getURI().getRawPath());
+		if (request.getURI().getRawQuery() != null) {
+			key.append('?').append(request.getURI().getRawQuery());
+		}
+		return key.toString();
+	}
+
+	// Les POST de lecture (lot de livres, vérification de disponibilité) ne modifient rien
+	private static boolean isWrite(HttpMethod method, PathContainer path, List<PathPattern> readOnlyPosts) {
+		if (method == HttpMethod.POST) {
+			return !matchesAny(readOnlyPosts, path);
+		}
+		return method == HttpMethod.PUT || method == HttpMethod.PATCH || method == HttpMethod.DELETE;
+	}
+
+	private static boolean matchesAny(List<PathPattern> patterns, PathContainer path) {
+		return patterns.stream().anyMatch(pattern -> pattern.matches(path));
+	}
+
+	private static List<PathPattern> patterns(List<String> paths) {
+		return paths.stream()
+				.map(String::trim)
+				.map(PathPatternParser.defaultInstance::parse)
+				.toList();
+	}
+
+	private static String lower(String value) {
+		return value == null ? "" : value.toLowerCase(Locale.ROOT);
+	}
+
+	public static class Config {
+		// Durée maximale de conservation des réponses de la route
+		private Duration ttl = Duration.ofSeconds(30);
+
+		// Chemins jamais gardés (flux, longue attente), au format des prédicats Path
+		private List<String> excludedPaths = new ArrayList<>();
+
+		// POST qui ne font que lire (lots, vérifications) : ils n'invalident pas le cache de la route
+		private List<String> readOnlyPosts = new ArrayList<>();
+
+		public Duration getTtl() {
+			return ttl;
+		}
+
+		public void setTtl(Duration ttl) {
+			this.ttl = ttl;
+		}
+
+		public List<String> getExcludedPaths() {
+			return excludedPaths;
+		}
+
+		public void setExcludedPaths(List<String> excludedPaths) {
+			this.excludedPaths = excludedPaths;
+		}
+
+		public List<String> getReadOnlyPosts() {
+			return readOnlyPosts;
+		}
+
+		public void setReadOnlyPosts(List<String> readOnlyPosts) {
+			this.readOnlyPosts = readOnlyPosts;
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package com.library.apigateway.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Requêtes passées dans le filtre, le service étant simulé par la suite de la chaîne
+class ResponseCacheFilterTests {
+
+	private static final Route ROUTE = Route.async()
+			.id("book-service")
+			.uri(URI.create("http://localhost:8081"))
+			.predicate(exchange -> true)
+			.build();
+	private static final String BODY = "{\"id\":1,\"titre\":\"Germinal\"}";
+
+	private final AtomicInteger serviceCalls = new AtomicInteger();
+	private GatewayFilter filter;
+
+	// Réponse du service des livres, avec le Cache-Control qu'il envoie pour les lectures du catalogue
+	private final GatewayFilterChain service = exchange -> {
+		serviceCalls.incrementAndGet();
+		ServerHttpResponse response = exchange.getResponse();
+		response.setStatusCode(HttpStatus.OK);
+		if (exchange.getRequest().getMethod() != HttpMethod.GET) {
+			return response.setComplete();
+		}
+		response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+		response.getHeaders().setCacheControl("public, max-age=0, s-maxage=30");
+		return response.writeWith(Mono.just(response.bufferFactory().wrap(BODY.getBytes(StandardCharsets.UTF_8))));
+	};
+
+	@BeforeEach
+	void setUp() {
+		ResponseCache cache = new ResponseCache();
+		ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(cache, "maxBytes", DataSize.ofMegabytes(1));
+		ReflectionTestUtils.setField(cache, "maxEntryBytes", DataSize.ofKilobytes(64));
+		cache.init();
+
+		ResponseCacheGatewayFilterFactory factory = new ResponseCacheGatewayFilterFactory();
+		ReflectionTestUtils.setField(factory, "cache", cache);
+		ResponseCacheGatewayFilterFactory.Config config = new ResponseCacheGatewayFilterFactory.Config();
+		config.setReadOnlyPosts(List.of("/api/books/batch", "/api/books/availability/check"));
+		filter = factory.apply(config);
+	}
+
+	@Test
+	void missThenHitThenInvalidatedByAWrite() {
+		MockServerWebExchange miss = send(MockServerHttpRequest.get("/api/books/1").build());
+		assertEquals("MISS", miss.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_STATUS_HEADER));
+		assertEquals(BODY, miss.getResponse().getBodyAsString().block());
+
+		MockServerWebExchange hit = send(MockServerHttpRequest.get("/api/books/1").build());
+		assertEquals("HIT", hit.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_STATUS_HEADER));
+		assertEquals(BODY, hit.getResponse().getBodyAsString().block());
+		assertEquals(1, serviceCalls.get());
+
+		send(MockServerHttpRequest.put("/api/books/1").build());
+		MockServerWebExchange afterWrite = send(MockServerHttpRequest.get("/api/books/1").build());
+		assertEquals("MISS", afterWrite.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_STATUS_HEADER));
+		assertEquals(3, serviceCalls.get());
+	}
+
+	@Test
+	void readOnlyPostsDoNotInvalidate() {
+		send(MockServerHttpRequest.get("/api/books/1").build());
+		send(MockServerHttpRequest.post("/api/books/batch").build());
+		send(MockServerHttpRequest.post("/api/books/availability/check").build());
+
+		MockServerWebExchange hit = send(MockServerHttpRequest.get("/api/books/1").build());
+		assertEquals("HIT", hit.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_STATUS_HEADER));
+
+		send(MockServerHttpRequest.post("/api/books/1/reserve").build());
+		MockServerWebExchange afterReserve = send(MockServerHttpRequest.get("/api/books/1").build());
+		assertEquals("MISS", afterReserve.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_STATUS_HEADER));
+	}
+
+	@Test
+	void responsesAreKeptPerAcceptEncoding() {
+		send(MockServerHttpRequest.get("/api/books/1").header(HttpHeaders.ACCEPT_ENCODING, "gzip").build());
+		MockServerWebExchange identity = send(MockServerHttpRequest.get("/api/books/1").build());
+
+		assertEquals("MISS", identity.getResponse().getHeaders().getFirst(ResponseCacheGatewayFilterFactory.CACHE_STATUS_HEADER));
+		assertEquals(2, serviceCalls.get());
+	}
+
+	private MockServerWebExchange send(MockServerHttpRequest request) {
+		MockServerWebExchange exchange = MockServerWebExchange.from(request);
+		exchange.getAttributes().put(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR, ROUTE);
+		filter.filter(exchange, service).block();
+		return exchange;
+	}
+}
@@ -0,0 +1,66 @@
+package com.library.apigateway.cache;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResponseCacheGatewayFilterFactoryTests {
+
+	private static final Duration ROUTE_TTL = Duration.ofSeconds(30);
+
+	@Test
+	void serviceCacheControlShortensOrPreventsCaching() {
+		assertEquals(ROUTE_TTL, ttl(HttpStatus.OK, null, false));
+		assertEquals(Duration.ofSeconds(10), ttl(HttpStatus.OK, "max-age=10", false));
+		assertEquals(ROUTE_TTL, ttl(HttpStatus.OK, "public, max-age=600", false));
+		// s-maxage vaut pour la passerelle, même si max-age=0 fait revalider les navigateurs
+		assertEquals(Duration.ofSeconds(20), ttl(HttpStatus.OK, "public, max-age=0, s-maxage=20", false));
+		assertNull(ttl(HttpStatus.OK, "max-age=0", false));
+		assertNull(ttl(HttpStatus.OK, "no-store", false));
+		assertNull(ttl(HttpStatus.OK, "private, max-age=60", false));
+		assertNull(ttl(HttpStatus.NOT_FOUND, null, false));
+	}
+
+	@Test
+	void authenticatedResponsesNeedAnExplicitPublicDirective() {
+		assertNull(ttl(HttpStatus.OK, null, true));
+		assertEquals(Duration.ofSeconds(20), ttl(HttpStatus.OK, "public, max-age=20", true));
+	}
+
+	@Test
+	void responsesVaryingOnHeadersOutsideTheKeyAreNotKept() {
+		HttpHeaders response = new HttpHeaders();
+		response.setVary(List.of(HttpHeaders.ACCEPT_ENCODING, HttpHeaders.ACCEPT));
+		assertEquals(ROUTE_TTL, ResponseCacheGatewayFilterFactory.cacheableFor(HttpStatus.OK, response, new HttpHeaders(), ROUTE_TTL));
+		response.setVary(List.of(HttpHeaders.COOKIE));
+		assertNull(ResponseCacheGatewayFilterFactory.cacheableFor(HttpStatus.OK, response, new HttpHeaders(), ROUTE_TTL));
+	}
+
+	@Test
+	void ifNoneMatchUsesWeakComparison() {
+		assertTrue(ResponseCacheGatewayFilterFactory.matches(List.of("\"42-3\""), "\"42-3\""));
+		assertTrue(ResponseCacheGatewayFilterFactory.matches(List.of("\"1-1\", W/\"42-3\""), "\"42-3\""));
+		assertTrue(ResponseCacheGatewayFilterFactory.matches(List.of("*"), "\"42-3\""));
+		assertFalse(ResponseCacheGatewayFilterFactory.matches(List.of("\"42-2\""), "\"42-3\""));
+	}
+
+	private static Duration ttl(HttpStatus status, String cacheControl, boolean authenticated) {
+		HttpHeaders response = new HttpHeaders();
+		if (cacheControl != null) {
+			response.setCacheControl(cacheControl);
+		}
+		HttpHeaders request = new HttpHeaders();
+		if (authenticated) {
+			request.setBearerAuth("jeton");
+		}
+		return ResponseCacheGatewayFilterFactory.cacheableFor(status, response, request, ROUTE_TTL);
+	}
+}
@@ -1,8 +1,22 @@
 package com.book.book_service.controller;
 
 import com.book.book_service.dto.BookDto;
+import com.book.book_service.dto.AvailabilityBatchDto;
+import com.book.book_service.dto.AvailabilityCheckDto;
+import com.book.book_service.dto.AvailabilityCountDto;
 import com.book.book_service.dto.AvailabilityRequest;
+import com.book.book_service.dto.BookBatchDto;
+import com.book.book_service.dto.BookFacetsDto;
+import com.book.book_service.dto.BookPageDto;
+import com.book.book_service.dto.BookReleaseDto;
+import com.book.book_service.dto.ChangeFeedDto;
+import com.book.book_service.dto.ImportProgressDto;
+import com.book.book_service.dto.ImportReportDto;
+import com.book.book_service.dto.SuggestionsDto;
+import com.book.book_service.service.BookImportService;
+import com.book.book_service.service.ChangeFeedService;
 import com.book.book_service.service.BookService;
+import com.book.book_service.web.IdempotencyStore;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -11,9 +25,19 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
 import java.util.NoSuchElementException;
 
@@ -25,16 +49,76 @@ public class BookController {
     @Autowired
     private BookService bookService;
 
-    @Operation(summary = "Récupérer tous les livres", description = "Retourne la liste de tous les livres disponibles dans la bibliothèque")
-    @ApiResponse(responseCode = "200", description = "Liste des livres récupérée avec succès")
+    @Autowired
+    private BookImportService bookImportService;
+
+    @Autowired
+    private ChangeFeedService changeFeedService;
+
+    @Autowired
+    private IdempotencyStore idempotency;
+
+    @Operation(summary = "Récupérer tous les livres", description = "Retourne la liste de tous les livres disponibles dans la bibliothèque. L'ETag suit le journal des modifications : avec If-None-Match, la réponse est 304 tant que le catalogue n'a pas changé")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Liste des livres récupérée avec succès"),
+        @ApiResponse(responseCode = "304", description = "Catalogue inchangé depuis l'ETag fourni")
+    })
     @GetMapping
-    public ResponseEntity<List<BookDto>> getAllBooks() {
+    public ResponseEntity<List<BookDto>> getAllBooks(WebRequest request) {
+        // Vérifié avant de charger le catalogue : un 304 ne coûte qu'une lecture de MAX(seq)
+        if (request.checkNotModified("\"catalog-" + changeFeedService.getLastSeq() + "\"")) {
+            return null;
+        }
         return ResponseEntity.ok(bookService.getAllBooks());
     }
 
+    @Operation(summary = "Parcourir les livres page par page", description = "Pagination par curseur sur l'ID : renvoyer le nextCursor reçu pour obtenir la page suivante")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Page de livres", content = @Content(schema = @Schema(implementation = BookPageDto.class))),
+        @ApiResponse(responseCode = "400", description = "Curseur invalide")
+    })
+    @GetMapping("/page")
+    public ResponseEntity<BookPageDto> getBooksPage(
+            @Parameter(description = "Curseur opaque renvoyé par la page précédente (absent pour la première page)")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Nombre de livres par page (max " + BookService.MAX_PAGE_SIZE + ")", example = "50")
+            @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(bookService.getBooksPage(cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(summary = "Exporter tout le catalogue en flux", description = "Écrit tous les livres en NDJSON (un livre JSON par ligne) au fil de la lecture en base")
+    @ApiResponse(responseCode = "200", description = "Flux NDJSON des livres")
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamBooks() {
+        StreamingResponseBody body = bookService::streamBooks;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    @Operation(summary = "Lire le journal des modifications", description = "Retourne les créations, modifications, suppressions et changements de disponibilité postérieurs au numéro de séquence donné. Avec wait > 0, la requête attend (long-poll) qu'une modification arrive")
+    @ApiResponse(responseCode = "200", description = "Modifications dans l'ordre des séquences, et dernier numéro de séquence lu", content = @Content(schema = @Schema(implementation = ChangeFeedDto.class)))
+    @GetMapping("/changes")
+    public DeferredResult<ChangeFeedDto> getChanges(
+            @Parameter(description = "Dernier numéro de séquence déjà traité (0 pour tout relire)", example = "0")
+            @RequestParam(defaultValue = "0") long since,
+            @Parameter(description = "Nombre maximal de modifications renvoyées (max " + ChangeFeedService.MAX_LIMIT + ")", example = "100")
+            @RequestParam(defaultValue = "" + ChangeFeedService.DEFAULT_LIMIT) int limit,
+            @Parameter(description = "Durée d'attente maximale en millisecondes si aucune modification n'est disponible (max " + ChangeFeedService.MAX_WAIT_MILLIS + ")", example = "25000")
+            @RequestParam(defaultValue = "0") long wait) {
+        return changeFeedService.pollChanges(since,
+                Math.max(1, Math.min(limit, ChangeFeedService.MAX_LIMIT)),
+                Math.min(wait, ChangeFeedService.MAX_WAIT_MILLIS));
+    }
+
     @Operation(summary = "Récupérer un livre par ID", description = "Retourne les détails d'un livre spécifique en fonction de son ID")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Livre trouvé", content = @Content(schema = @Schema(implementation = BookDto.class))),
+        @ApiResponse(responseCode = "304", description = "Livre inchangé depuis l'ETag ou la date fournis (If-None-Match / If-Modified-Since)"),
         @ApiResponse(responseCode = "404", description = "Livre non trouvé")
     })
     @GetMapping("/{id}")
@@ -42,36 +126,125 @@ public class BookController {
             @Parameter(description = "ID du livre à récupérer", required = true, example = "42")
             @PathVariable Long id) {
         try {
-            return ResponseEntity.ok(bookService.getBookById(id));
+            // Spring répond 304 sans corps si If-None-Match / If-Modified-Since correspondent
+            return withValidators(ResponseEntity.ok(), bookService.getBookById(id));
         } catch (NoSuchElementException e) {
             return ResponseEntity.notFound().build();
         }
     }
 
+    @Operation(summary = "Récupérer plusieurs livres par ID", description = "Retourne en une seule requête les livres correspondant à une liste d'IDs, dans l'ordre demandé, ainsi que les IDs introuvables")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Livres trouvés et IDs manquants", content = @Content(schema = @Schema(implementation = BookBatchDto.class))),
+        @ApiResponse(responseCode = "400", description = "Trop d'IDs dans la requête (max " + BookService.MAX_BATCH_SIZE + ")")
+    })
+    @PostMapping("/batch")
+    public ResponseEntity<BookBatchDto> getBooksByIds(
+            @Parameter(description = "Liste des IDs de livres", required = true)
+            @RequestBody List<Long> ids) {
+        try {
+            return ResponseEntity.ok(bookService.getBooksByIds(ids));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @Operation(summary = "Créer un nouveau livre", description = "Ajoute un nouveau livre à la bibliothèque")
-    @ApiResponse(responseCode = "201", description = "Livre créé avec succès", content = @Content(schema = @Schema(implementation = BookDto.class)))
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "201", description = "Livre créé avec succès", content = @Content(schema = @Schema(implementation = BookDto.class))),
+        @ApiResponse(responseCode = "400", description = "Clé d'idempotence déjà utilisée pour une autre requête"),
+        @ApiResponse(responseCode = "409", description = "Requête avec la même clé d'idempotence encore en cours")
+    })
     @PostMapping
     public ResponseEntity<BookDto> createBook(
+            @Parameter(description = "Clé choisie par le client : une nouvelle tentative avec la même clé renvoie la réponse de la première")
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
             @Parameter(description = "Détails du livre à créer", required = true)
             @RequestBody BookDto bookDto) {
-        return new ResponseEntity<>(bookService.createBook(bookDto), HttpStatus.CREATED);
+        try {
+            return idempotency.execute("POST /api/books", idempotencyKey, bookDto,
+                    () -> new ResponseEntity<>(bookService.createBook(bookDto), HttpStatus.CREATED));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(summary = "Importer un catalogue CSV", description = "Importe en masse des livres depuis un CSV avec en-tête (titre, auteur, genre, isbn, disponible), lu au fil de l'eau et inséré par lots")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Rapport d'import (livres importés et lignes rejetées)", content = @Content(schema = @Schema(implementation = ImportReportDto.class))),
+        @ApiResponse(responseCode = "400", description = "En-tête CSV invalide")
+    })
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ResponseEntity<ImportReportDto> importCsv(InputStream body) throws IOException {
+        try {
+            return ResponseEntity.ok(bookImportService.importCsv(body));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(summary = "Importer un catalogue NDJSON", description = "Importe en masse des livres depuis un flux NDJSON (un livre JSON par ligne), lu au fil de l'eau et inséré par lots")
+    @ApiResponse(responseCode = "200", description = "Rapport d'import (livres importés et lignes rejetées)", content = @Content(schema = @Schema(implementation = ImportReportDto.class)))
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ImportReportDto> importNdjson(InputStream body) throws IOException {
+        return ResponseEntity.ok(bookImportService.importNdjson(body));
     }
 
-    @Operation(summary = "Mettre à jour un livre", description = "Met à jour les informations d'un livre existant")
+    @Operation(summary = "Importer un catalogue CSV avec suivi", description = "Comme l'import CSV, mais la réponse est un flux NDJSON (Accept: application/x-ndjson) : une ligne de progression après chaque lot écrit, puis une dernière avec done = true et le rapport complet")
+    @ApiResponse(responseCode = "200", description = "Progression de l'import puis rapport final", content = @Content(schema = @Schema(implementation = ImportProgressDto.class)))
+    @PostMapping(value = "/import", consumes = "text/csv", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importCsvWithProgress(InputStream body) {
+        StreamingResponseBody progress = out -> bookImportService.importCsv(body, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(progress);
+    }
+
+    @Operation(summary = "Importer un catalogue NDJSON avec suivi", description = "Comme l'import NDJSON, mais la réponse est un flux NDJSON (Accept: application/x-ndjson) : une ligne de progression après chaque lot écrit, puis une dernière avec done = true et le rapport complet")
+    @ApiResponse(responseCode = "200", description = "Progression de l'import puis rapport final", content = @Content(schema = @Schema(implementation = ImportProgressDto.class)))
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importNdjsonWithProgress(InputStream body) {
+        StreamingResponseBody progress = out -> bookImportService.importNdjson(body, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(progress);
+    }
+
+    @Operation(summary = "Mettre à jour un livre", description = "Met à jour les informations d'un livre existant. La version attendue est lue dans If-Match (ETag du livre) ou, à défaut, dans le champ version du corps")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Livre mis à jour avec succès", content = @Content(schema = @Schema(implementation = BookDto.class))),
-        @ApiResponse(responseCode = "404", description = "Livre non trouvé")
+        @ApiResponse(responseCode = "404", description = "Livre non trouvé"),
+        @ApiResponse(responseCode = "409", description = "Version du corps obsolète : le livre a été modifié entre-temps"),
+        @ApiResponse(responseCode = "412", description = "If-Match ne correspond pas à la version actuelle du livre")
     })
     @PutMapping("/{id}")
-    public ResponseEntity<BookDto> updateBook(
+    public ResponseEntity<?> updateBook(
             @Parameter(description = "ID du livre à mettre à jour", required = true, example = "42")
             @PathVariable Long id, 
+            @Parameter(description = "ETag du livre sur lequel se base la modification", example = "\"42-3\"")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @Parameter(description = "Détails mis à jour du livre", required = true)
             @RequestBody BookDto bookDto) {
+        Long expectedVersion;
+        if (ifMatch == null) {
+            expectedVersion = bookDto.getVersion();
+        } else if (ifMatch.trim().equals("*")) {
+            expectedVersion = null;
+        } else {
+            expectedVersion = parseVersion(id, ifMatch);
+            if (expectedVersion == null) {
+                return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+            }
+        }
         try {
-            return ResponseEntity.ok(bookService.updateBook(id, bookDto));
+            return withValidators(ResponseEntity.ok(), bookService.updateBook(id, bookDto, expectedVersion));
         } catch (NoSuchElementException e) {
             return ResponseEntity.notFound().build();
+        } catch (OptimisticLockingFailureException e) {
+            HttpStatus status = ifMatch != null ? HttpStatus.PRECONDITION_FAILED : HttpStatus.CONFLICT;
+            return ResponseEntity.status(status).body(e.getMessage());
         }
     }
 
@@ -92,7 +265,7 @@ public class BookController {
         }
     }
 
-    @Operation(summary = "Rechercher des livres", description = "Recherche des livres selon différents critères (titre, auteur, genre)")
+    @Operation(summary = "Rechercher des livres", description = "Recherche des livres selon différents critères (titre, auteur, genre), insensible aux accents, triés par pertinence")
     @ApiResponse(responseCode = "200", description = "Résultats de recherche", content = @Content(schema = @Schema(implementation = BookDto.class)))
     @GetMapping("/search")
     public ResponseEntity<List<BookDto>> searchBooks(
@@ -101,8 +274,139 @@ public class BookController {
             @Parameter(description = "Nom de l'auteur (recherche partielle)", example = "Rowling")
             @RequestParam(required = false) String author,
             @Parameter(description = "Genre du livre", example = "Fantasy")
-            @RequestParam(required = false) String genre) {
-        return ResponseEntity.ok(bookService.searchBooks(title, author, genre));
+            @RequestParam(required = false) String genre,
+            @Parameter(description = "true : livres disponibles seulement, false : livres empruntés seulement", example = "true")
+            @RequestParam(required = false) Boolean available,
+            @Parameter(description = "Numéro de page (à partir de 0)", example = "0")
+            @RequestParam(required = false) Integer page,
+            @Parameter(description = "Taille de page (" + BookService.DEFAULT_PAGE_SIZE + " par défaut, max " + BookService.MAX_PAGE_SIZE + ")", example = "20")
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(bookService.searchBooks(title, author, genre, available, page, size));
+    }
+
+    @Operation(summary = "Suggérer des titres et des auteurs", description = "Autocomplétion : titres commençant par le préfixe et auteurs dont un mot du nom commence par le préfixe, insensible aux accents")
+    @ApiResponse(responseCode = "200", description = "Titres et auteurs suggérés", content = @Content(schema = @Schema(implementation = SuggestionsDto.class)))
+    @GetMapping("/suggest")
+    public ResponseEntity<SuggestionsDto> suggest(
+            @Parameter(description = "Début du titre ou du nom de l'auteur saisi", required = true, example = "harr")
+            @RequestParam String prefix,
+            @Parameter(description = "Nombre maximal de titres et d'auteurs suggérés (max " + BookService.MAX_SUGGESTIONS + ")", example = "10")
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(bookService.getSuggestions(prefix, limit));
+    }
+
+    @Operation(summary = "Vérifier la disponibilité de plusieurs livres", description = "Indique en une requête quels livres d'une liste d'IDs sont disponibles, empruntés ou inexistants, sans interroger la base")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "IDs disponibles, empruntés et inexistants", content = @Content(schema = @Schema(implementation = AvailabilityCheckDto.class))),
+        @ApiResponse(responseCode = "400", description = "Trop d'IDs dans la requête (max " + BookService.MAX_AVAILABILITY_CHECK + ")")
+    })
+    @PostMapping("/availability/check")
+    public ResponseEntity<AvailabilityCheckDto> checkAvailability(
+            @Parameter(description = "Liste des IDs de livres", required = true)
+            @RequestBody List<Long> ids) {
+        try {
+            return ResponseEntity.ok(bookService.checkAvailability(ids));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(summary = "Compter les livres disponibles", description = "Nombre total de livres, de livres disponibles et de livres empruntés")
+    @ApiResponse(responseCode = "200", description = "Compteurs de disponibilité", content = @Content(schema = @Schema(implementation = AvailabilityCountDto.class)))
+    @GetMapping("/availability/count")
+    public ResponseEntity<AvailabilityCountDto> getAvailabilityCount() {
+        return ResponseEntity.ok(bookService.getAvailabilityCount());
+    }
+
+    @Operation(summary = "Compter les livres par facette", description = "Nombre de livres par genre, par auteur, disponibles et empruntés, éventuellement restreint aux mêmes critères que la recherche")
+    @ApiResponse(responseCode = "200", description = "Compteurs de facettes", content = @Content(schema = @Schema(implementation = BookFacetsDto.class)))
+    @GetMapping("/facets")
+    public ResponseEntity<BookFacetsDto> getFacets(
+            @Parameter(description = "Titre du livre (recherche partielle)", example = "Harry Potter")
+            @RequestParam(required = false) String title,
+            @Parameter(description = "Nom de l'auteur (recherche partielle)", example = "Rowling")
+            @RequestParam(required = false) String author,
+            @Parameter(description = "Genre du livre", example = "Fantasy")
+            @RequestParam(required = false) String genre,
+            @Parameter(description = "Nombre maximal de genres et d'auteurs renvoyés, les plus fréquents d'abord (max " + BookService.MAX_FACET_SIZE + ")", example = "20")
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(bookService.getFacets(title, author, genre, size));
+    }
+
+    @Operation(summary = "Réserver un livre", description = "Marque atomiquement un livre disponible comme emprunté ; échoue si un autre emprunt l'a réservé entre-temps")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Livre réservé", content = @Content(schema = @Schema(implementation = BookDto.class))),
+        @ApiResponse(responseCode = "404", description = "Livre non trouvé"),
+        @ApiResponse(responseCode = "409", description = "Livre déjà emprunté")
+    })
+    @PostMapping("/{id}/reserve")
+    public ResponseEntity<?> reserveBook(
+            @Parameter(description = "ID du livre à réserver", required = true, example = "42")
+            @PathVariable Long id,
+            @Parameter(description = "Jeton de l'emprunt, exigé pour libérer le livre ensuite", example = "65f2a1c4e4b0a1b2c3d4e5f6")
+            @RequestParam(required = false) String reservation) {
+        try {
+            return ResponseEntity.ok(bookService.reserveBook(id, reservation));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Libérer un livre", description = "Marque atomiquement un livre emprunté comme disponible, s'il est toujours réservé avec le même jeton")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Livre libéré", content = @Content(schema = @Schema(implementation = BookDto.class))),
+        @ApiResponse(responseCode = "404", description = "Livre non trouvé"),
+        @ApiResponse(responseCode = "409", description = "Livre déjà disponible ou réservé par un autre emprunt")
+    })
+    @PostMapping("/{id}/release")
+    public ResponseEntity<?> releaseBook(
+            @Parameter(description = "ID du livre à libérer", required = true, example = "42")
+            @PathVariable Long id,
+            @Parameter(description = "Jeton passé à la réservation du livre", example = "65f2a1c4e4b0a1b2c3d4e5f6")
+            @RequestParam(required = false) String reservation) {
+        try {
+            return ResponseEntity.ok(bookService.releaseBook(id, reservation));
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Réserver plusieurs livres", description = "Réserve atomiquement, en une requête, chaque livre disponible de la liste ; les livres déjà empruntés ou inexistants sont signalés sans faire échouer les autres")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Livres réservés, déjà empruntés et inexistants", content = @Content(schema = @Schema(implementation = AvailabilityBatchDto.class))),
+        @ApiResponse(responseCode = "400", description = "Trop d'IDs dans la requête (max " + BookService.MAX_AVAILABILITY_BATCH + ")")
+    })
+    @PostMapping("/batch/reserve")
+    public ResponseEntity<AvailabilityBatchDto> reserveBooks(
+            @Parameter(description = "Liste des IDs de livres à réserver", required = true)
+            @RequestBody List<Long> ids,
+            @Parameter(description = "Jeton de l'emprunt groupé, exigé pour libérer les livres ensuite", example = "65f2a1c4e4b0a1b2c3d4e5f6")
+            @RequestParam(required = false) String reservation) {
+        try {
+            return ResponseEntity.ok(bookService.reserveBooks(ids, reservation));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(summary = "Libérer plusieurs livres", description = "Marque atomiquement, en une requête, chaque livre de la liste comme disponible s'il est toujours réservé avec le jeton indiqué ; une libération rejouée après une nouvelle réservation est signalée en conflit")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Livres libérés, déjà disponibles et inexistants", content = @Content(schema = @Schema(implementation = AvailabilityBatchDto.class))),
+        @ApiResponse(responseCode = "400", description = "Trop d'IDs dans la requête (max " + BookService.MAX_AVAILABILITY_BATCH + ")")
+    })
+    @PostMapping("/batch/release")
+    public ResponseEntity<AvailabilityBatchDto> releaseBooks(
+            @Parameter(description = "Livres à libérer, chacun avec le jeton de sa réservation", required = true)
+            @RequestBody List<BookReleaseDto> releases) {
+        try {
+            return ResponseEntity.ok(bookService.releaseBooks(releases));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
 
     @Operation(summary = "Mettre à jour la disponibilité d'un livre", 
@@ -123,4 +427,32 @@ public class BookController {
             return ResponseEntity.notFound().build();
         }
     }
-}
\ No newline at end of file
+
+    // ETag fort "<id>-<version>" et Last-Modified (date de modification, ou d'ajout pour les anciens livres)
+    private static ResponseEntity<BookDto> withValidators(ResponseEntity.BodyBuilder builder, BookDto book) {
+        builder.eTag("\"" + book.getId() + "-" + book.getVersion() + "\"");
+        LocalDateTime modified = book.getDateModification() != null ? book.getDateModification() : book.getDateAjout();
+        if (modified != null) {
+            builder.lastModified(modified.atZone(ZoneId.systemDefault()));
+        }
+        return builder.body(book);
+    }
+
+    // Version contenue dans un ETag "<id>-<version>" (éventuellement faible), null s'il ne concerne pas ce livre
+    private static Long parseVersion(Long id, String etag) {
+        String value = etag.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        value = value.replace("\"", "");
+        String prefix = id + "-";
+        if (!value.startsWith(prefix)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.substring(prefix.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
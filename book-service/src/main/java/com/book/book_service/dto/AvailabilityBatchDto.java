@@ -0,0 +1,21 @@
+package com.book.book_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AvailabilityBatchDto {
+    // Livres réservés (ou libérés) par cette requête, dans leur nouvel état
+    private List<BookDto> books = new ArrayList<>();
+
+    // Livres déjà dans l'état demandé (déjà empruntés pour une réservation, déjà disponibles pour une libération)
+    private List<Long> conflictIds = new ArrayList<>();
+
+    // IDs ne correspondant à aucun livre
+    private List<Long> missingIds = new ArrayList<>();
+}
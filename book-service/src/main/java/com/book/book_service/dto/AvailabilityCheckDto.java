@@ -0,0 +1,17 @@
+package com.book.book_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AvailabilityCheckDto {
+    private List<Long> availableIds;
+    private List<Long> unavailableIds;
+
+    // IDs ne correspondant à aucun livre
+    private List<Long> missingIds;
+}
@@ -0,0 +1,14 @@
+package com.book.book_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AvailabilityCountDto {
+    private long total;
+    private long disponibles;
+    private long empruntes;
+}
@@ -0,0 +1,18 @@
+package com.book.book_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookBatchDto {
+    // Livres trouvés, dans l'ordre des IDs demandés
+    private List<BookDto> books = new ArrayList<>();
+
+    // IDs demandés qui ne correspondent à aucun livre
+    private List<Long> missingIds = new ArrayList<>();
+}
@@ -0,0 +1,16 @@
+package com.book.book_service.dto;
+
+import com.book.book_service.model.BookChange.ChangeType;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+public class BookChangeDto {
+    private Long seq;
+    private Long bookId;
+    private ChangeType type;
+    private LocalDateTime changedAt;
+
+    // État actuel du livre (null s'il a été supprimé depuis)
+    private BookDto book;
+}
@@ -12,4 +12,6 @@ public class BookDto {
     private String isbn;
     private boolean disponible;
     private LocalDateTime dateAjout;
+    private LocalDateTime dateModification;
+    private Long version;
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.book.book_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookFacetsDto {
+    private long total;
+    private long disponibles;
+    private long empruntes;
+
+    // Nombre de livres par valeur, du plus fréquent au moins fréquent
+    private Map<String, Long> genres;
+    private Map<String, Long> auteurs;
+}
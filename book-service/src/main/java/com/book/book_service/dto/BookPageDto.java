@@ -0,0 +1,19 @@
+package com.book.book_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookPageDto {
+    private List<BookDto> content;
+
+    // Curseur opaque à renvoyer pour obtenir la page suivante (null = dernière page)
+    private String nextCursor;
+
+    // Taille de page demandée (après bornage) ; la dernière page peut contenir moins d'éléments
+    private int size;
+}
@@ -0,0 +1,15 @@
+package com.book.book_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookReleaseDto {
+    private Long bookId;
+
+    // Jeton passé à la réservation du livre ; absent pour un emprunt réservé sans jeton
+    private String reservation;
+}
@@ -0,0 +1,16 @@
+package com.book.book_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ChangeFeedDto {
+    private List<BookChangeDto> changes;
+
+    // Numéro de séquence à repasser dans "since" pour la prochaine lecture
+    private long lastSeq;
+}
@@ -0,0 +1,17 @@
+package com.book.book_service.dto;
+
+import lombok.Data;
+
+// Ligne de progression d'un import suivi (réponse NDJSON) : une après chaque lot écrit, puis une dernière
+// avec done = true et le rapport complet, ou le message d'erreur si l'import s'est arrêté
+@Data
+public class ImportProgressDto {
+    private int batches;
+    private long totalRows;
+    private long imported;
+    private long rejected;
+
+    private boolean done;
+    private ImportReportDto report;
+    private String error;
+}
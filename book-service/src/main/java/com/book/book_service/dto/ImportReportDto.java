@@ -0,0 +1,19 @@
+package com.book.book_service.dto;
+
+import lombok.Data;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ImportReportDto {
+    private long totalRows;
+    private long imported;
+    private long rejected;
+
+    // Nombre de lots écrits en base
+    private int batches;
+
+    // Détail des lignes rejetées (limité aux premières, voir rejectedRowsTruncated)
+    private List<RejectedRowDto> rejectedRows = new ArrayList<>();
+    private boolean rejectedRowsTruncated;
+}
@@ -0,0 +1,15 @@
+package com.book.book_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RejectedRowDto {
+    // Numéro de ligne dans le fichier importé (1 = première ligne)
+    private long line;
+    private String isbn;
+    private String reason;
+}
@@ -0,0 +1,14 @@
+package com.book.book_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SuggestionsDto {
+    private List<String> titres;
+    private List<String> auteurs;
+}
@@ -0,0 +1,20 @@
+package com.book.book_service.event;
+
+import com.book.book_service.dto.BookDto;
+import com.book.book_service.model.BookChange.ChangeType;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Publié par le service des livres à chaque écriture, dans la transaction de l'écriture
+@Getter
+@AllArgsConstructor
+public class BookChangedEvent {
+    private final ChangeType type;
+    private final Long bookId;
+
+    // État du livre avant la modification (null pour une création)
+    private final BookDto before;
+
+    // État du livre après la modification (null pour une suppression)
+    private final BookDto after;
+}
@@ -25,5 +25,24 @@ public class Book {
     
     private boolean disponible = true;
     
+    // Jeton de l'emprunt qui a réservé le livre : seule la libération portant ce jeton le rend disponible.
+    // Null hors réservation, et pour les livres réservés avant l'introduction du jeton
+    @Column(length = 64)
+    private String reservation;
+    
     private LocalDateTime dateAjout = LocalDateTime.now();
+    
+    // Date de dernière modification, renvoyée dans l'en-tête Last-Modified
+    private LocalDateTime dateModification;
+    
+    // Version pour le verrouillage optimiste et l'ETag
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    private Long version;
+    
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        dateModification = LocalDateTime.now();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package com.book.book_service.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@Table(name = "book_changes")
+public class BookChange {
+    // Numéro de séquence strictement croissant, dans l'ordre de validation des transactions
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long seq;
+
+    @Column(nullable = false)
+    private Long bookId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private ChangeType type;
+
+    private LocalDateTime changedAt = LocalDateTime.now();
+
+    // Énumération des types de modification du catalogue
+    public enum ChangeType {
+        CREATED,        // Livre ajouté
+        UPDATED,        // Informations du livre modifiées
+        DELETED,        // Livre supprimé
+        AVAILABILITY    // Disponibilité modifiée (emprunt ou retour)
+    }
+}
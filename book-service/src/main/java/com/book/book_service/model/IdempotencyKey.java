@@ -0,0 +1,42 @@
+package com.book.book_service.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+// Clé d'idempotence et réponse enregistrée d'une requête POST (lue et écrite par IdempotencyStore en SQL)
+@Data
+@Entity
+@Table(name = "idempotency_keys")
+public class IdempotencyKey {
+    // Périmètre et clé du client, par exemple "POST /api/books <clé>"
+    @Id
+    @Column(length = 512)
+    private String id;
+
+    // Empreinte SHA-256 du corps de la requête : une clé réutilisée pour une autre requête est refusée
+    @Column(nullable = false, length = 64)
+    private String empreinte;
+
+    // Réservation en cours de la clé : seul son détenteur enregistre la réponse ou libère la clé
+    @Column(nullable = false, length = 36)
+    private String jeton;
+
+    // Au-delà, un traitement sans réponse est considéré abandonné et la clé peut être reprise
+    @Column(nullable = false)
+    private LocalDateTime enCoursJusqua;
+
+    @Column(nullable = false)
+    private LocalDateTime expireLe;
+
+    // Réponse enregistrée, absente tant que le traitement est en cours
+    private Integer statut;
+
+    @Column(columnDefinition = "text")
+    private String entetes;
+
+    @Column(columnDefinition = "text")
+    private String corps;
+
+    private String typeCorps;
+}
@@ -0,0 +1,16 @@
+package com.book.book_service.repository;
+
+import com.book.book_service.model.BookChange;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+@Repository
+public interface BookChangeRepository extends JpaRepository<BookChange, Long> {
+    List<BookChange> findBySeqGreaterThanOrderBySeqAsc(Long seq, Limit limit);
+
+    @Query("SELECT COALESCE(MAX(c.seq), 0) FROM BookChange c")
+    long findLastSeq();
+}
@@ -1,11 +1,19 @@
 package com.book.book_service.repository;
 
 import com.book.book_service.model.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
@@ -21,4 +29,52 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     List<Book> searchBooks(@Param("titre") String titre, 
                           @Param("auteur") String auteur, 
                           @Param("genre") String genre);
+    
+    // Pagination par curseur (keyset) : WHERE id > ? ORDER BY id LIMIT ?, sans OFFSET
+    List<Book> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+    
+    // Parcours de tout le catalogue via un curseur JDBC (à appeler dans une transaction)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT b FROM Book b ORDER BY b.id")
+    Stream<Book> streamAllOrderById();
+    
+    // Contrôle d'unicité des ISBN pour tout un lot en une seule requête
+    @Query("SELECT b.isbn FROM Book b WHERE b.isbn IN :isbns")
+    List<String> findExistingIsbns(@Param("isbns") Collection<String> isbns);
+    
+    List<Book> findByIsbnIn(Collection<String> isbns);
+    
+    // Agrégats de facettes calculés par la base, utilisés tant que les compteurs en mémoire ne sont pas prêts
+    @Query("SELECT b.genre, COUNT(b) FROM Book b WHERE b.genre IS NOT NULL GROUP BY b.genre")
+    List<Object[]> countByGenre();
+    
+    @Query("SELECT b.auteur, COUNT(b) FROM Book b GROUP BY b.auteur")
+    List<Object[]> countByAuteur();
+    
+    long countByDisponibleTrue();
+    
+    // Autocomplétion par la base, utilisée tant que l'index de préfixes n'est pas prêt
+    @Query("SELECT DISTINCT b.titre FROM Book b WHERE LOWER(b.titre) LIKE LOWER(CONCAT(:prefix, '%')) ORDER BY b.titre")
+    List<String> findTitresStartingWith(@Param("prefix") String prefix, Limit limit);
+    
+    @Query("SELECT DISTINCT b.auteur FROM Book b WHERE LOWER(b.auteur) LIKE LOWER(CONCAT(:prefix, '%')) ORDER BY b.auteur")
+    List<String> findAuteursStartingWith(@Param("prefix") String prefix, Limit limit);
+    
+    // Compare-and-set atomique : ne réserve le livre que s'il est disponible, en y inscrivant le jeton de l'emprunt.
+    // Renvoie 0 si le livre n'existe pas ou est déjà emprunté (course perdue).
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Book b SET b.disponible = false, b.reservation = :reservation, b.version = b.version + 1, " +
+           "b.dateModification = :now WHERE b.id = :id AND b.disponible = true")
+    int reserve(@Param("id") Long id,
+                @Param("reservation") String reservation,
+                @Param("now") LocalDateTime now);
+    
+    // Ne libère le livre que s'il est toujours réservé par le même emprunt (jeton vide : réservation sans jeton).
+    // Une libération rejouée après une nouvelle réservation n'a donc aucun effet. Renvoie 0 sinon.
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Book b SET b.disponible = true, b.reservation = NULL, b.version = b.version + 1, " +
+           "b.dateModification = :now WHERE b.id = :id AND b.disponible = false AND COALESCE(b.reservation, '') = :reservation")
+    int release(@Param("id") Long id,
+                @Param("reservation") String reservation,
+                @Param("now") LocalDateTime now);
 }
\ No newline at end of file
@@ -0,0 +1,183 @@
+package com.book.book_service.search;
+
+import com.book.book_service.dto.AvailabilityCountDto;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Bitmap des livres disponibles indexé par ID : un bit par livre, lu sans passer par la base
+@Component
+public class BookAvailabilityIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Livres existants, et parmi eux ceux qui sont disponibles
+    private final BitSet known = new BitSet();
+    private final BitSet available = new BitSet();
+    private int knownCount = 0;
+    private int availableCount = 0;
+
+    // Versions des modifications récentes seulement : le bitmap reste compact
+    private final RecentVersions versions = new RecentVersions();
+
+    private volatile boolean ready = false;
+
+    // Le bitmap ne couvre que les IDs représentables en int ; au-delà, on repasse par la base
+    private volatile boolean overflow = false;
+
+    public boolean isReady() {
+        return ready && !overflow;
+    }
+
+    public void markReady() {
+        ready = true;
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            overflow = false;
+            known.clear();
+            available.clear();
+            knownCount = 0;
+            availableCount = 0;
+            versions.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Modification notifiée après commit : sa version est gardée pour écarter une notification plus ancienne
+    public void put(Long id, boolean disponible, Long version) {
+        update(id, disponible, version, true);
+    }
+
+    // Livre lu lors de la construction de l'index : une modification déjà notifiée n'est pas écrasée
+    public void load(Long id, boolean disponible, Long version) {
+        update(id, disponible, version, false);
+    }
+
+    private void update(Long id, boolean disponible, Long version, boolean notified) {
+        if (id > Integer.MAX_VALUE) {
+            overflow = true;
+            return;
+        }
+        int index = id.intValue();
+        long newVersion = version == null ? 0 : version;
+        lock.writeLock().lock();
+        try {
+            if (versions.isStale(id, newVersion)) {
+                return;
+            }
+            if (notified) {
+                versions.applied(id, newVersion);
+            }
+            if (!known.get(index)) {
+                known.set(index);
+                knownCount++;
+            }
+            if (available.get(index) != disponible) {
+                available.set(index, disponible);
+                availableCount += disponible ? 1 : -1;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // version : dernière version du livre supprimé, qui devient sa pierre tombale
+    public void remove(Long id, Long version) {
+        if (id > Integer.MAX_VALUE) {
+            return;
+        }
+        int index = id.intValue();
+        lock.writeLock().lock();
+        try {
+            versions.deleted(id, version == null ? 0 : version);
+            if (known.get(index)) {
+                knownCount--;
+            }
+            if (available.get(index)) {
+                availableCount--;
+            }
+            known.clear(index);
+            available.clear(index);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Compteurs tenus à jour à chaque changement, sans parcourir le bitmap
+    public AvailabilityCountDto counts() {
+        lock.readLock().lock();
+        try {
+            return new AvailabilityCountDto(knownCount, availableCount, knownCount - availableCount);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // true/false pour un livre connu, null s'il n'existe pas
+    public Boolean isAvailable(Long id) {
+        if (id == null || id < 0 || id > Integer.MAX_VALUE) {
+            return null;
+        }
+        int index = id.intValue();
+        lock.readLock().lock();
+        try {
+            return known.get(index) ? available.get(index) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Conserve, dans l'ordre reçu, les IDs dont la disponibilité vaut "disponible"
+    public List<Long> filter(List<Long> ids, boolean disponible) {
+        List<Long> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Long id : ids) {
+                if (id >= 0 && id <= Integer.MAX_VALUE && known.get(id.intValue()) && available.get(id.intValue()) == disponible) {
+                    result.add(id);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    // IDs croissants des livres disponibles (ou empruntés), en sautant les "offset" premiers
+    public List<Long> ids(boolean disponible, long offset, int limit) {
+        List<Long> result = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            long skipped = 0;
+            for (int i = next(disponible, 0); i >= 0 && result.size() < limit; i = next(disponible, i + 1)) {
+                if (skipped++ >= offset) {
+                    result.add((long) i);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    private int next(boolean disponible, int from) {
+        if (disponible) {
+            return available.nextSetBit(from);
+        }
+        // Livre emprunté = connu et non disponible
+        for (int i = known.nextSetBit(from); i >= 0; i = known.nextSetBit(i + 1)) {
+            if (!available.get(i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,25 @@
+package com.book.book_service.search;
+
+import com.book.book_service.dto.BookDto;
+import com.book.book_service.event.BookChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// Met à jour le bitmap de disponibilité une fois les écritures validées
+@Component
+public class BookAvailabilityIndexListener {
+
+    @Autowired
+    private BookAvailabilityIndex availabilityIndex;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        BookDto book = event.getAfter();
+        if (book == null) {
+            availabilityIndex.remove(event.getBookId(), event.getBefore() == null ? null : event.getBefore().getVersion());
+        } else {
+            availabilityIndex.put(book.getId(), book.isDisponible(), book.getVersion());
+        }
+    }
+}
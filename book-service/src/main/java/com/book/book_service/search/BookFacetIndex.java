@@ -0,0 +1,194 @@
+package com.book.book_service.search;
+
+import com.book.book_service.dto.BookFacetsDto;
+import org.springframework.stereotype.Component;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Compteurs par genre, par auteur et par disponibilité, ajustés à chaque écriture plutôt que recalculés
+@Component
+public class BookFacetIndex {
+
+    private record Entry(String genre, String auteur, boolean disponible) {
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Dernier état connu de chaque livre, pour retirer son ancienne contribution lors d'une mise à jour
+    private final Map<Long, Entry> entries = new HashMap<>();
+
+    // Versions des modifications récentes, pour ignorer une notification arrivée après une plus récente
+    private final RecentVersions versions = new RecentVersions();
+
+    private final Map<String, Long> genres = new HashMap<>();
+    private final Map<String, Long> auteurs = new HashMap<>();
+    private long disponibles = 0;
+
+    // Classements triés par fréquence, recalculés seulement quand un compteur de genre ou d'auteur change
+    // (un emprunt ou un retour ne modifie que le compteur de disponibilité)
+    private volatile List<Map.Entry<String, Long>> genreRanking;
+    private volatile List<Map.Entry<String, Long>> auteurRanking;
+
+    private volatile boolean ready = false;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void markReady() {
+        ready = true;
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            entries.clear();
+            versions.clear();
+            genres.clear();
+            auteurs.clear();
+            disponibles = 0;
+            genreRanking = null;
+            auteurRanking = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Modification notifiée après commit : sa version est gardée pour écarter une notification plus ancienne
+    public void put(Long id, String genre, String auteur, boolean disponible, Long version) {
+        update(id, new Entry(genre, auteur, disponible), version == null ? 0 : version, true);
+    }
+
+    // Livre lu lors de la construction de l'index : une modification déjà notifiée n'est pas écrasée
+    public void load(Long id, String genre, String auteur, boolean disponible, Long version) {
+        update(id, new Entry(genre, auteur, disponible), version == null ? 0 : version, false);
+    }
+
+    private void update(Long id, Entry entry, long version, boolean notified) {
+        lock.writeLock().lock();
+        try {
+            // Deux commits concurrents peuvent notifier dans le désordre : on garde la version la plus récente
+            if (versions.isStale(id, version)) {
+                return;
+            }
+            if (notified) {
+                versions.applied(id, version);
+            }
+            Entry previous = entries.put(id, entry);
+            if (previous != null) {
+                apply(previous, -1);
+            }
+            apply(entry, 1);
+            if (previous == null || !Objects.equals(previous.genre(), entry.genre())) {
+                genreRanking = null;
+            }
+            if (previous == null || !Objects.equals(previous.auteur(), entry.auteur())) {
+                auteurRanking = null;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // version : dernière version du livre supprimé, qui devient sa pierre tombale
+    public void remove(Long id, Long version) {
+        lock.writeLock().lock();
+        try {
+            versions.deleted(id, version == null ? 0 : version);
+            Entry previous = entries.remove(id);
+            if (previous != null) {
+                apply(previous, -1);
+                genreRanking = null;
+                auteurRanking = null;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Compteurs de tout le catalogue, lus directement : seuls les "top" premiers éléments des classements sont copiés
+    public BookFacetsDto facets(int top) {
+        lock.readLock().lock();
+        try {
+            if (genreRanking == null) {
+                genreRanking = rank(genres);
+            }
+            if (auteurRanking == null) {
+                auteurRanking = rank(auteurs);
+            }
+            return new BookFacetsDto(entries.size(), disponibles, entries.size() - disponibles,
+                    head(genreRanking, top), head(auteurRanking, top));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Compteurs restreints à un ensemble de livres (résultats d'une recherche)
+    public BookFacetsDto facets(Collection<Long> ids, int top) {
+        Map<String, Long> subsetGenres = new HashMap<>();
+        Map<String, Long> subsetAuteurs = new HashMap<>();
+        long total = 0;
+        long subsetDisponibles = 0;
+        lock.readLock().lock();
+        try {
+            for (Long id : ids) {
+                Entry entry = entries.get(id);
+                if (entry == null) {
+                    continue;
+                }
+                total++;
+                if (entry.disponible()) {
+                    subsetDisponibles++;
+                }
+                increment(subsetGenres, entry.genre(), 1);
+                increment(subsetAuteurs, entry.auteur(), 1);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return toDto(total, subsetDisponibles, subsetGenres, subsetAuteurs, top);
+    }
+
+    public static BookFacetsDto toDto(long total, long disponibles, Map<String, Long> genres,
+                                      Map<String, Long> auteurs, int top) {
+        return new BookFacetsDto(total, disponibles, total - disponibles, head(rank(genres), top), head(rank(auteurs), top));
+    }
+
+    public static void increment(Map<String, Long> counts, String value, long delta) {
+        if (value == null || value.isBlank()) {
+            return;
+        }
+        counts.merge(value.trim(), delta, (a, b) -> a + b == 0 ? null : a + b);
+    }
+
+    private void apply(Entry entry, int delta) {
+        increment(genres, entry.genre(), delta);
+        increment(auteurs, entry.auteur(), delta);
+        if (entry.disponible()) {
+            disponibles += delta;
+        }
+    }
+
+    private static List<Map.Entry<String, Long>> rank(Map<String, Long> counts) {
+        return counts.entrySet().stream()
+                .map(e -> Map.entry(e.getKey(), e.getValue()))
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .toList();
+    }
+
+    private static Map<String, Long> head(List<Map.Entry<String, Long>> ranking, int top) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> e : ranking.subList(0, Math.min(top, ranking.size()))) {
+            result.put(e.getKey(), e.getValue());
+        }
+        return result;
+    }
+}
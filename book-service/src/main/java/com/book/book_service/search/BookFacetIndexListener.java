@@ -0,0 +1,25 @@
+package com.book.book_service.search;
+
+import com.book.book_service.dto.BookDto;
+import com.book.book_service.event.BookChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// Ajuste les compteurs de facettes une fois les écritures validées
+@Component
+public class BookFacetIndexListener {
+
+    @Autowired
+    private BookFacetIndex facetIndex;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        BookDto book = event.getAfter();
+        if (book == null) {
+            facetIndex.remove(event.getBookId(), event.getBefore() == null ? null : event.getBefore().getVersion());
+        } else {
+            facetIndex.put(book.getId(), book.getGenre(), book.getAuteur(), book.isDisponible(), book.getVersion());
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.book.book_service.search;
+
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Index inversé de trigrammes sur le titre, l'auteur et le genre normalisés
+@Component
+public class BookSearchIndex {
+
+    public static final int MIN_QUERY_LENGTH = 3;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Textes normalisés [titre, auteur, genre] par ID de livre, pour vérifier et classer les candidats
+    private final Map<Long, String[]> documents = new HashMap<>();
+
+    // Trigramme préfixé par le numéro du champ ("0har", "1row"...) -> IDs triés des livres qui le contiennent
+    private final Map<String, PostingList> postings = new HashMap<>();
+
+    private volatile boolean ready = false;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void markReady() {
+        ready = true;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            documents.clear();
+            postings.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void index(Long id, String titre, String auteur, String genre) {
+        String[] fields = {
+                TextNormalizer.normalize(titre),
+                TextNormalizer.normalize(auteur),
+                TextNormalizer.normalize(genre)
+        };
+        lock.writeLock().lock();
+        try {
+            String[] previous = documents.put(id, fields);
+            if (previous != null) {
+                removePostings(id, previous);
+            }
+            for (int field = 0; field < fields.length; field++) {
+                for (String trigram : trigrams(fields[field])) {
+                    postings.computeIfAbsent(field + trigram, k -> new PostingList()).add(id);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            String[] previous = documents.remove(id);
+            if (previous != null) {
+                removePostings(id, previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // IDs des livres correspondant à tous les critères, du plus pertinent au moins pertinent.
+    // Renvoie null si l'index ne peut pas répondre (pas encore construit, aucun critère, ou critère trop court).
+    public List<Long> search(String titre, String auteur, String genre) {
+        String[] queries = {
+                TextNormalizer.normalize(titre),
+                TextNormalizer.normalize(auteur),
+                TextNormalizer.normalize(genre)
+        };
+        boolean hasCriteria = false;
+        for (int field = 0; field < queries.length; field++) {
+            if (queries[field].isEmpty()) {
+                continue;
+            }
+            if (queries[field].length() < MIN_QUERY_LENGTH) {
+                return null;
+            }
+            hasCriteria = true;
+        }
+        if (!ready || !hasCriteria) {
+            return null;
+        }
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = null;
+            for (int field = 0; field < queries.length; field++) {
+                if (queries[field].isEmpty()) {
+                    continue;
+                }
+                Map<Long, Double> fieldScores = searchField(field, queries[field], scores);
+                if (fieldScores.isEmpty()) {
+                    return List.of();
+                }
+                scores = fieldScores;
+            }
+
+            Map<Long, Double> finalScores = scores;
+            List<Long> ids = new ArrayList<>(finalScores.keySet());
+            ids.sort(Comparator.comparing((Long id) -> finalScores.get(id)).reversed()
+                    .thenComparing(Comparator.naturalOrder()));
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Candidats = intersection des listes de trigrammes, puis vérification de la sous-chaîne exacte.
+    // Les scores des champs précédents sont cumulés et restreignent les candidats.
+    private Map<Long, Double> searchField(int field, String query, Map<Long, Double> previousScores) {
+        List<PostingList> lists = new ArrayList<>();
+        for (String trigram : trigrams(query)) {
+            PostingList ids = postings.get(field + trigram);
+            if (ids == null) {
+                return Map.of();
+            }
+            lists.add(ids);
+        }
+        lists.sort(Comparator.comparingInt(PostingList::size));
+
+        Map<Long, Double> scores = new HashMap<>();
+        if (previousScores != null && previousScores.size() < lists.get(0).size()) {
+            for (Long id : previousScores.keySet()) {
+                if (containsAll(lists, id)) {
+                    match(field, query, id, previousScores, scores);
+                }
+            }
+        } else {
+            // La plus courte liste est parcourue, sa présence dans les autres vérifiée par recherche dichotomique
+            PostingList smallest = lists.get(0);
+            for (int i = 0; i < smallest.size(); i++) {
+                long id = smallest.get(i);
+                if (previousScores != null && !previousScores.containsKey(id)) {
+                    continue;
+                }
+                if (containsAll(lists, id)) {
+                    match(field, query, id, previousScores, scores);
+                }
+            }
+        }
+        return scores;
+    }
+
+    private void match(int field, String query, long id, Map<Long, Double> previousScores, Map<Long, Double> scores) {
+        String text = documents.get(id)[field];
+        int position = text.indexOf(query);
+        if (position < 0) {
+            return;
+        }
+        double score = score(text, query, position);
+        scores.put(id, previousScores == null ? score : previousScores.get(id) + score);
+    }
+
+    // Plus le champ est court par rapport à la requête, plus il est pertinent ; bonus en début de champ ou de mot
+    private static double score(String text, String query, int position) {
+        double score = (double) query.length() / text.length();
+        if (position == 0) {
+            score += 1.0;
+        } else if (text.charAt(position - 1) == ' ') {
+            score += 0.5;
+        }
+        return score;
+    }
+
+    private static boolean containsAll(List<PostingList> lists, long id) {
+        for (PostingList ids : lists) {
+            if (!ids.contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void removePostings(Long id, String[] fields) {
+        for (int field = 0; field < fields.length; field++) {
+            for (String trigram : trigrams(fields[field])) {
+                String key = field + trigram;
+                PostingList ids = postings.get(key);
+                if (ids != null) {
+                    ids.remove(id);
+                    if (ids.isEmpty()) {
+                        postings.remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    static Set<String> trigrams(String text) {
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + MIN_QUERY_LENGTH <= text.length(); i++) {
+            trigrams.add(text.substring(i, i + MIN_QUERY_LENGTH));
+        }
+        return trigrams;
+    }
+}
@@ -0,0 +1,30 @@
+package com.book.book_service.search;
+
+import com.book.book_service.dto.BookDto;
+import com.book.book_service.event.BookChangedEvent;
+import com.book.book_service.model.BookChange.ChangeType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+// Tient l'index de recherche à jour une fois les écritures validées
+@Component
+public class BookSearchIndexListener {
+
+    @Autowired
+    private BookSearchIndex searchIndex;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        // Un changement de disponibilité ne modifie aucun champ indexé
+        if (event.getType() == ChangeType.AVAILABILITY) {
+            return;
+        }
+        BookDto book = event.getAfter();
+        if (book == null) {
+            searchIndex.remove(event.getBookId());
+        } else {
+            searchIndex.index(book.getId(), book.getTitre(), book.getAuteur(), book.getGenre());
+        }
+    }
+}
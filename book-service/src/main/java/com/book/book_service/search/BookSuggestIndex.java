@@ -0,0 +1,105 @@
+package com.book.book_service.search;
+
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Index de préfixes pour l'autocomplétion : clés normalisées triées dans une skip list.
+// Une suggestion ne lit que les premières entrées de la plage [préfixe, préfixe + Character.MAX_VALUE),
+// quel que soit le nombre de titres du catalogue.
+@Component
+public class BookSuggestIndex {
+
+    // Sépare la clé de recherche du nom complet de l'auteur, et trie avant tout autre caractère
+    private static final char SEPARATOR = '\u0000';
+
+    // Libellé affiché (premier rencontré) et nombre de livres partageant la clé
+    private record Suggestion(String display, int count) {
+    }
+
+    // Titre normalisé -> suggestion
+    private final ConcurrentSkipListMap<String, Suggestion> titres = new ConcurrentSkipListMap<>();
+
+    // Chaque début de mot du nom ("j k rowling", "k rowling", "rowling") + séparateur + nom normalisé -> suggestion
+    private final ConcurrentSkipListMap<String, Suggestion> auteurs = new ConcurrentSkipListMap<>();
+
+    private volatile boolean ready = false;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public void markReady() {
+        ready = true;
+    }
+
+    public void clear() {
+        ready = false;
+        titres.clear();
+        auteurs.clear();
+    }
+
+    public void add(String titre, String auteur) {
+        update(titre, auteur, 1);
+    }
+
+    public void remove(String titre, String auteur) {
+        update(titre, auteur, -1);
+    }
+
+    // Titres commençant par le préfixe, les plus courts d'abord (ordre des clés normalisées)
+    public List<String> suggestTitres(String prefix, int limit) {
+        return collect(titres, prefix, limit);
+    }
+
+    // Auteurs dont un mot du nom commence par le préfixe ("row" -> "J.K. Rowling")
+    public List<String> suggestAuteurs(String prefix, int limit) {
+        return collect(auteurs, prefix, limit);
+    }
+
+    private void update(String titre, String auteur, int delta) {
+        String normalizedTitre = TextNormalizer.normalize(titre);
+        if (!normalizedTitre.isEmpty()) {
+            adjust(titres, normalizedTitre, titre.trim(), delta);
+        }
+        String normalizedAuteur = TextNormalizer.normalize(auteur);
+        if (!normalizedAuteur.isEmpty()) {
+            for (int i = 0; i < normalizedAuteur.length(); i++) {
+                if (i == 0 || normalizedAuteur.charAt(i - 1) == ' ') {
+                    String key = normalizedAuteur.substring(i) + SEPARATOR + normalizedAuteur;
+                    adjust(auteurs, key, auteur.trim(), delta);
+                }
+            }
+        }
+    }
+
+    // compute est atomique : les écritures concurrentes sur une même clé ne perdent pas de compteur
+    private static void adjust(ConcurrentSkipListMap<String, Suggestion> map, String key, String display, int delta) {
+        map.compute(key, (k, previous) -> {
+            int count = (previous == null ? 0 : previous.count()) + delta;
+            if (count <= 0) {
+                return null;
+            }
+            return new Suggestion(previous == null ? display : previous.display(), count);
+        });
+    }
+
+    private static List<String> collect(ConcurrentSkipListMap<String, Suggestion> map, String prefix, int limit) {
+        String normalized = TextNormalizer.normalize(prefix);
+        if (normalized.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        // Un même auteur peut correspondre par plusieurs mots de son nom : on dédoublonne
+        Set<String> result = new LinkedHashSet<>();
+        for (Suggestion suggestion : map.subMap(normalized, true, normalized + Character.MAX_VALUE, false).values()) {
+            result.add(suggestion.display());
+            if (result.size() >= limit) {
+                break;
+            }
+        }
+        return new ArrayList<>(result);
+    }
+}
@@ -0,0 +1,37 @@
+package com.book.book_service.search;
+
+import com.book.book_service.dto.BookDto;
+import com.book.book_service.event.BookChangedEvent;
+import com.book.book_service.model.BookChange.ChangeType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import java.util.Objects;
+
+// Tient l'index d'autocomplétion à jour une fois les écritures validées
+@Component
+public class BookSuggestIndexListener {
+
+    @Autowired
+    private BookSuggestIndex suggestIndex;
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBookChanged(BookChangedEvent event) {
+        if (event.getType() == ChangeType.AVAILABILITY) {
+            return;
+        }
+        BookDto before = event.getBefore();
+        BookDto after = event.getAfter();
+        if (before != null && after != null
+                && Objects.equals(before.getTitre(), after.getTitre())
+                && Objects.equals(before.getAuteur(), after.getAuteur())) {
+            return;
+        }
+        if (before != null) {
+            suggestIndex.remove(before.getTitre(), before.getAuteur());
+        }
+        if (after != null) {
+            suggestIndex.add(after.getTitre(), after.getAuteur());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.book.book_service.search;
+
+import java.util.Arrays;
+
+// IDs de livres triés dans un tableau de long : 8 octets par entrée, contre un Long et une entrée de HashSet.
+// Les IDs sont indexés dans l'ordre croissant à la construction, l'ajout est alors un simple ajout en fin de tableau.
+// Non synchronisé : utilisé sous le verrou de BookSearchIndex.
+final class PostingList {
+
+    private long[] ids = new long[4];
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    long get(int index) {
+        return ids[index];
+    }
+
+    boolean contains(long id) {
+        return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+
+    void add(long id) {
+        int position = size;
+        if (size > 0 && ids[size - 1] >= id) {
+            position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+        }
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size + (size >> 1) + 1);
+        }
+        System.arraycopy(ids, position, ids, position + 1, size - position);
+        ids[position] = id;
+        size++;
+    }
+
+    void remove(long id) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position < 0) {
+            return;
+        }
+        System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+        size--;
+        // Rend la mémoire d'une liste qui s'est beaucoup vidée
+        if (ids.length > 16 && size < ids.length / 4) {
+            ids = Arrays.copyOf(ids, size * 2);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.book.book_service.search;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+// Dernières versions appliquées aux index par les notifications de modification. Deux commits concurrents peuvent
+// notifier dans le désordre, mais à quelques instants d'écart : une version n'est gardée que ORDERING_WINDOW, puis
+// purgée à l'écriture suivante. Une suppression laisse une version "pierre tombale" qui écarte une modification
+// plus ancienne arrivée après elle. Non synchronisé : utilisé sous le verrou de l'index.
+class RecentVersions {
+
+    static final long ORDERING_WINDOW = TimeUnit.MINUTES.toNanos(1);
+
+    private record Applied(long version, boolean deleted, long appliedAt) {
+    }
+
+    // Ordre d'application : les entrées les plus anciennes sont en tête
+    private final LinkedHashMap<Long, Applied> recent = new LinkedHashMap<>();
+    private final LongSupplier clock;
+
+    RecentVersions() {
+        this(System::nanoTime);
+    }
+
+    RecentVersions(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    // true si une version plus récente, ou la suppression du livre, a déjà été appliquée
+    boolean isStale(Long id, long version) {
+        Applied applied = recent.get(id);
+        if (applied == null) {
+            return false;
+        }
+        // La suppression ne change pas la version : la dernière version du livre supprimé est elle aussi périmée
+        return applied.deleted() ? version <= applied.version() : version < applied.version();
+    }
+
+    void applied(Long id, long version) {
+        record(id, new Applied(version, false, clock.getAsLong()));
+    }
+
+    void deleted(Long id, long version) {
+        record(id, new Applied(version, true, clock.getAsLong()));
+    }
+
+    void clear() {
+        recent.clear();
+    }
+
+    int size() {
+        return recent.size();
+    }
+
+    private void record(Long id, Applied applied) {
+        recent.remove(id);
+        recent.put(id, applied);
+        Iterator<Applied> oldest = recent.values().iterator();
+        while (oldest.hasNext() && applied.appliedAt() - oldest.next().appliedAt() > ORDERING_WINDOW) {
+            oldest.remove();
+        }
+    }
+}
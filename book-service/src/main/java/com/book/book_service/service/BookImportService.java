@@ -0,0 +1,389 @@
+package com.book.book_service.service;
+
+import com.book.book_service.dto.BookDto;
+import com.book.book_service.dto.ImportProgressDto;
+import com.book.book_service.dto.ImportReportDto;
+import com.book.book_service.dto.RejectedRowDto;
+import com.book.book_service.event.BookChangedEvent;
+import com.book.book_service.model.Book;
+import com.book.book_service.model.BookChange.ChangeType;
+import com.book.book_service.repository.BookRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+// Import en masse du catalogue : lecture incrémentale, contrôle des ISBN par lot et insertions JDBC groupées
+@Service
+public class BookImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookImportService.class);
+
+    public static final int BATCH_SIZE = 1000;
+    private static final int MAX_REPORTED_REJECTIONS = 1000;
+
+    // Book.id est en IDENTITY, ce qui empêche Hibernate de grouper les INSERT : on passe par JDBC directement.
+    // Un seul INSERT multi-lignes par lot ; RETURNING donne les ISBN réellement insérés, les comptes d'un
+    // batchUpdate n'étant pas fiables avec reWriteBatchedInserts (SUCCESS_NO_INFO pour chaque ligne)
+    private static final String INSERT_SQL = "INSERT INTO books (titre, auteur, genre, isbn, disponible, date_ajout, date_modification, version) VALUES ";
+    private static final String INSERT_ROW = "(?, ?, ?, ?, ?, ?, ?, 0)";
+    private static final String INSERT_CONFLICT = " ON CONFLICT (isbn) DO NOTHING RETURNING isbn";
+    private static final int INSERT_COLUMNS = 7;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // CSV avec en-tête (titre, auteur, genre, isbn, disponible), séparateur ',' ou ';'
+    public ImportReportDto importCsv(InputStream input) throws IOException {
+        return importCsv(input, report -> { });
+    }
+
+    // Import suivi : une ligne NDJSON de progression est écrite et envoyée après chaque lot
+    public void importCsv(InputStream input, OutputStream progress) throws IOException {
+        writeProgress(progress, onBatch -> importCsv(input, onBatch));
+    }
+
+    // NDJSON : un objet BookDto par ligne ; comme en CSV, un livre sans "disponible" est disponible
+    public ImportReportDto importNdjson(InputStream input) throws IOException {
+        return importNdjson(input, report -> { });
+    }
+
+    public void importNdjson(InputStream input, OutputStream progress) throws IOException {
+        writeProgress(progress, onBatch -> importNdjson(input, onBatch));
+    }
+
+    // onBatch reçoit le rapport après chaque lot écrit
+    private ImportReportDto importCsv(InputStream input, Consumer<ImportReportDto> onBatch) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        ImportContext context = new ImportContext(onBatch);
+
+        String header = reader.readLine();
+        if (header == null) {
+            return context.report;
+        }
+        if (header.startsWith("\uFEFF")) {
+            header = header.substring(1);
+        }
+        char separator = header.indexOf(';') >= 0 ? ';' : ',';
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = parseCsvLine(header, separator);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("titre", "auteur", "isbn")) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("Colonne obligatoire absente de l'en-tête CSV: " + required);
+            }
+        }
+
+        long lineNumber = 1;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            List<String> values = parseCsvLine(line, separator);
+            BookDto book = new BookDto();
+            book.setTitre(column(values, columns, "titre"));
+            book.setAuteur(column(values, columns, "auteur"));
+            book.setGenre(column(values, columns, "genre"));
+            book.setIsbn(column(values, columns, "isbn"));
+            String disponible = column(values, columns, "disponible");
+            book.setDisponible(disponible == null || parseBoolean(disponible));
+            context.add(lineNumber, book);
+        }
+        context.flush();
+        return context.report;
+    }
+
+    private ImportReportDto importNdjson(InputStream input, Consumer<ImportReportDto> onBatch) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        ImportContext context = new ImportContext(onBatch);
+
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                JsonNode node = objectMapper.readTree(line);
+                if (!node.isObject()) {
+                    context.report.setTotalRows(context.report.getTotalRows() + 1);
+                    context.reject(lineNumber, null, "JSON invalide: objet attendu");
+                    continue;
+                }
+                BookDto book = objectMapper.treeToValue(node, BookDto.class);
+                JsonNode disponible = node.get("disponible");
+                if (disponible == null || disponible.isNull()) {
+                    book.setDisponible(true);
+                }
+                context.add(lineNumber, book);
+            } catch (JsonProcessingException e) {
+                context.report.setTotalRows(context.report.getTotalRows() + 1);
+                context.reject(lineNumber, null, "JSON invalide: " + e.getOriginalMessage());
+            }
+        }
+        context.flush();
+        return context.report;
+    }
+
+    // État d'un import en cours : lot courant, ISBN déjà vus dans le fichier et rapport
+    private class ImportContext {
+        private final ImportReportDto report = new ImportReportDto();
+        private final List<PendingRow> pending = new ArrayList<>(BATCH_SIZE);
+        private final Set<String> seenIsbns = new HashSet<>();
+        private final Consumer<ImportReportDto> onBatch;
+
+        ImportContext(Consumer<ImportReportDto> onBatch) {
+            this.onBatch = onBatch;
+        }
+
+        void add(long line, BookDto book) {
+            report.setTotalRows(report.getTotalRows() + 1);
+            String reason = validate(book);
+            if (reason != null) {
+                reject(line, book.getIsbn(), reason);
+                return;
+            }
+            book.setIsbn(book.getIsbn().trim());
+            if (!seenIsbns.add(book.getIsbn())) {
+                reject(line, book.getIsbn(), "ISBN en double dans le fichier importé");
+                return;
+            }
+            pending.add(new PendingRow(line, book));
+            if (pending.size() >= BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            // Un seul SELECT par lot pour écarter les ISBN déjà présents au catalogue
+            Set<String> existing = new HashSet<>(bookRepository.findExistingIsbns(
+                    pending.stream().map(row -> row.book().getIsbn()).collect(Collectors.toList())));
+            List<PendingRow> rows = new ArrayList<>();
+            for (PendingRow row : pending) {
+                if (existing.contains(row.book().getIsbn())) {
+                    reject(row.line(), row.book().getIsbn(), "ISBN déjà présent dans le catalogue");
+                } else {
+                    rows.add(row);
+                }
+            }
+            pending.clear();
+
+            if (!rows.isEmpty()) {
+                Set<String> inserted = insert(rows);
+                for (PendingRow row : rows) {
+                    // Absent du RETURNING : ISBN ajouté entre-temps par une autre requête (ON CONFLICT DO NOTHING)
+                    if (!inserted.contains(row.book().getIsbn())) {
+                        reject(row.line(), row.book().getIsbn(), "ISBN déjà présent dans le catalogue");
+                    }
+                }
+                report.setImported(report.getImported() + inserted.size());
+            }
+
+            report.setBatches(report.getBatches() + 1);
+            log.info("Import du catalogue : lot {} écrit, {} livres importés, {} lignes rejetées sur {} lues",
+                    report.getBatches(), report.getImported(), report.getRejected(), report.getTotalRows());
+            onBatch.accept(report);
+        }
+
+        void reject(long line, String isbn, String reason) {
+            report.setRejected(report.getRejected() + 1);
+            if (report.getRejectedRows().size() < MAX_REPORTED_REJECTIONS) {
+                report.getRejectedRows().add(new RejectedRowDto(line, isbn, reason));
+            } else {
+                report.setRejectedRowsTruncated(true);
+            }
+        }
+    }
+
+    // Chaque lot est validé dans sa propre transaction : si le client se déconnecte, l'écriture de la progression
+    // échoue et l'import s'arrête, les lots déjà envoyés restant importés
+    private void writeProgress(OutputStream out, ImportRun run) throws IOException {
+        ImportProgressDto last;
+        try {
+            ImportReportDto report = run.run(batch -> {
+                try {
+                    writeLine(out, progress(batch));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            last = progress(report);
+            last.setReport(report);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } catch (IllegalArgumentException e) {
+            // En-tête CSV invalide : la réponse est déjà commencée, l'erreur est la dernière ligne
+            last = new ImportProgressDto();
+            last.setError(e.getMessage());
+        }
+        last.setDone(true);
+        writeLine(out, last);
+    }
+
+    private void writeLine(OutputStream out, ImportProgressDto progress) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(progress));
+        out.write('\n');
+        out.flush();
+    }
+
+    private static ImportProgressDto progress(ImportReportDto report) {
+        ImportProgressDto progress = new ImportProgressDto();
+        progress.setBatches(report.getBatches());
+        progress.setTotalRows(report.getTotalRows());
+        progress.setImported(report.getImported());
+        progress.setRejected(report.getRejected());
+        return progress;
+    }
+
+    // Insère un lot dans sa propre transaction et publie la création de chaque livre inséré
+    private Set<String> insert(List<PendingRow> rows) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        return transaction.execute(status -> {
+            Set<String> inserted = new HashSet<>(batchInsert(rows));
+            publishCreated(inserted);
+            return inserted;
+        });
+    }
+
+    // BATCH_SIZE * INSERT_COLUMNS paramètres, bien en deçà de la limite de 32767 de PostgreSQL
+    private List<String> batchInsert(List<PendingRow> rows) {
+        String sql = INSERT_SQL + String.join(", ", Collections.nCopies(rows.size(), INSERT_ROW)) + INSERT_CONFLICT;
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        return jdbcTemplate.query(sql, ps -> {
+            for (int i = 0; i < rows.size(); i++) {
+                BookDto book = rows.get(i).book();
+                int offset = i * INSERT_COLUMNS;
+                ps.setString(offset + 1, book.getTitre().trim());
+                ps.setString(offset + 2, book.getAuteur().trim());
+                ps.setString(offset + 3, book.getGenre());
+                ps.setString(offset + 4, book.getIsbn());
+                ps.setBoolean(offset + 5, book.isDisponible());
+                ps.setTimestamp(offset + 6, now);
+                ps.setTimestamp(offset + 7, now);
+            }
+        }, (rs, rowNum) -> rs.getString(1));
+    }
+
+    // Alimente le journal des modifications et, après le commit, les index en mémoire
+    private void publishCreated(Collection<String> isbns) {
+        if (isbns.isEmpty()) {
+            return;
+        }
+        for (Book book : bookRepository.findByIsbnIn(isbns)) {
+            BookDto created = new BookDto();
+            BeanUtils.copyProperties(book, created);
+            eventPublisher.publishEvent(new BookChangedEvent(ChangeType.CREATED, book.getId(), null, created));
+        }
+    }
+
+    private static String validate(BookDto book) {
+        if (book.getTitre() == null || book.getTitre().isBlank()) {
+            return "Titre manquant";
+        }
+        if (book.getAuteur() == null || book.getAuteur().isBlank()) {
+            return "Auteur manquant";
+        }
+        if (book.getIsbn() == null || book.getIsbn().isBlank()) {
+            return "ISBN manquant";
+        }
+        return null;
+    }
+
+    private static String column(List<String> values, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= values.size() || values.get(index).isEmpty()) {
+            return null;
+        }
+        return values.get(index);
+    }
+
+    private static boolean parseBoolean(String value) {
+        String normalized = value.trim().toLowerCase(Locale.ROOT);
+        return normalized.equals("true") || normalized.equals("1") || normalized.equals("oui");
+    }
+
+    // Découpe une ligne CSV en gérant les champs entre guillemets et les guillemets doublés
+    static List<String> parseCsvLine(String line, char separator) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == separator) {
+                values.add(current.toString().trim());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString().trim());
+        return values;
+    }
+
+    private record PendingRow(long line, BookDto book) {
+    }
+
+    private interface ImportRun {
+        ImportReportDto run(Consumer<ImportReportDto> onBatch) throws IOException;
+    }
+}
@@ -1,29 +1,145 @@
 package com.book.book_service.service;
 
 import com.book.book_service.dto.BookDto;
+import com.book.book_service.dto.AvailabilityBatchDto;
+import com.book.book_service.dto.AvailabilityCheckDto;
+import com.book.book_service.dto.AvailabilityCountDto;
 import com.book.book_service.dto.AvailabilityRequest;
+import com.book.book_service.dto.BookBatchDto;
+import com.book.book_service.dto.BookFacetsDto;
+import com.book.book_service.dto.BookPageDto;
+import com.book.book_service.dto.BookReleaseDto;
+import com.book.book_service.dto.SuggestionsDto;
+import com.book.book_service.event.BookChangedEvent;
 import com.book.book_service.model.Book;
+import com.book.book_service.model.BookChange.ChangeType;
 import com.book.book_service.repository.BookRepository;
+import com.book.book_service.search.BookAvailabilityIndex;
+import com.book.book_service.search.BookFacetIndex;
+import com.book.book_service.search.BookSearchIndex;
+import com.book.book_service.search.BookSuggestIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class BookService {
 
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+    public static final int MAX_BATCH_SIZE = 500;
+    public static final int DEFAULT_FACET_SIZE = 20;
+    public static final int MAX_FACET_SIZE = 1000;
+    public static final int MAX_AVAILABILITY_CHECK = 10_000;
+    public static final int MAX_AVAILABILITY_BATCH = 100;
+    public static final int DEFAULT_SUGGESTIONS = 10;
+    public static final int MAX_SUGGESTIONS = 50;
+
     @Autowired
     private BookRepository bookRepository;
     
+    @Autowired
+    private BookSearchIndex searchIndex;
+    
+    @Autowired
+    private BookFacetIndex facetIndex;
+    
+    @Autowired
+    private BookAvailabilityIndex availabilityIndex;
+    
+    @Autowired
+    private BookSuggestIndex suggestIndex;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    // Compare-and-set sur tout un lot : RETURNING renvoie les seuls livres réellement modifiés
+    private static final String BATCH_RESERVE_SQL = "UPDATE books SET disponible = false, reservation = :reservation, "
+            + "version = version + 1, date_modification = :now "
+            + "WHERE id IN (:ids) AND disponible = true RETURNING id";
+    
+    // Chaque livre n'est libéré que s'il est encore réservé avec le jeton de la libération (jeton vide : sans jeton)
+    private static final String BATCH_RELEASE_SQL = "UPDATE books SET disponible = true, reservation = NULL, "
+            + "version = version + 1, date_modification = :now "
+            + "WHERE (id, COALESCE(reservation, '')) IN (:releases) AND disponible = false RETURNING id";
+    
     public List<BookDto> getAllBooks() {
         return bookRepository.findAll().stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
     
+    public BookPageDto getBooksPage(String cursor, Integer size) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        long afterId = cursor == null || cursor.isBlank() ? 0L : decodeCursor(cursor);
+        
+        // On lit une ligne de plus pour savoir s'il existe une page suivante
+        List<Book> books = bookRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(pageSize + 1));
+        boolean hasNext = books.size() > pageSize;
+        List<BookDto> content = books.stream()
+                .limit(pageSize)
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+        
+        String nextCursor = hasNext ? encodeCursor(content.get(content.size() - 1).getId()) : null;
+        return new BookPageDto(content, nextCursor, pageSize);
+    }
+    
+    // Écrit le catalogue en NDJSON ligne par ligne, sans jamais le charger entièrement en mémoire
+    @Transactional(readOnly = true)
+    public void streamBooks(OutputStream out) throws IOException {
+        try (Stream<Book> books = bookRepository.streamAllOrderById()) {
+            Iterator<Book> iterator = books.iterator();
+            while (iterator.hasNext()) {
+                Book book = iterator.next();
+                out.write(objectMapper.writeValueAsBytes(convertToDto(book)));
+                out.write('\n');
+                // Détacher l'entité pour que le contexte de persistance reste de taille constante
+                entityManager.detach(book);
+            }
+            out.flush();
+        }
+    }
+    
     public BookDto getBookById(Long id) {
         Optional<Book> book = bookRepository.findById(id);
         if (book.isPresent()) {
@@ -33,51 +149,386 @@ public class BookService {
         }
     }
     
+    public BookBatchDto getBooksByIds(List<Long> ids) {
+        List<Long> distinctIds = ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        if (distinctIds.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Trop d'IDs demandés (max " + MAX_BATCH_SIZE + "): " + distinctIds.size());
+        }
+        
+        // Une seule requête SELECT ... WHERE id IN (...) pour tout le lot
+        Map<Long, Book> found = bookRepository.findAllById(distinctIds).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        
+        List<BookDto> books = new ArrayList<>();
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : distinctIds) {
+            Book book = found.get(id);
+            if (book != null) {
+                books.add(convertToDto(book));
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return new BookBatchDto(books, missingIds);
+    }
+    
+    @Transactional
     public BookDto createBook(BookDto bookDto) {
         Book book = convertToEntity(bookDto);
         Book savedBook = bookRepository.save(book);
-        return convertToDto(savedBook);
+        BookDto created = convertToDto(savedBook);
+        eventPublisher.publishEvent(new BookChangedEvent(ChangeType.CREATED, created.getId(), null, created));
+        return created;
     }
     
-    public BookDto updateBook(Long id, BookDto bookDto) {
+    // expectedVersion : version sur laquelle le client s'est basé (If-Match ou champ version), null pour l'ignorer
+    @Transactional
+    public BookDto updateBook(Long id, BookDto bookDto, Long expectedVersion) {
         Optional<Book> existingBook = bookRepository.findById(id);
         if (existingBook.isPresent()) {
             Book book = existingBook.get();
-            BeanUtils.copyProperties(bookDto, book);
+            if (expectedVersion != null && !expectedVersion.equals(book.getVersion())) {
+                throw new OptimisticLockingFailureException("Le livre " + id + " a été modifié entre-temps (version "
+                        + book.getVersion() + ", attendue " + expectedVersion + ")");
+            }
+            BookDto before = convertToDto(book);
+            // L'ID, la version et les dates sont gérés par le service, pas par le client
+            BeanUtils.copyProperties(bookDto, book, "id", "version", "dateAjout", "dateModification");
             book.setId(id); // Assurer que l'ID reste le même
-            Book updatedBook = bookRepository.save(book);
-            return convertToDto(updatedBook);
+            // Flush : @Version et @PreUpdate s'appliquent ici, la réponse (ETag) et l'événement portent la nouvelle version
+            Book updatedBook = bookRepository.saveAndFlush(book);
+            BookDto updated = convertToDto(updatedBook);
+            eventPublisher.publishEvent(new BookChangedEvent(ChangeType.UPDATED, id, before, updated));
+            return updated;
         } else {
             throw new NoSuchElementException("Livre non trouvé avec l'id: " + id);
         }
     }
     
+    @Transactional
     public void deleteBook(Long id) {
-        if (bookRepository.existsById(id)) {
-            bookRepository.deleteById(id);
+        Optional<Book> existingBook = bookRepository.findById(id);
+        if (existingBook.isPresent()) {
+            bookRepository.delete(existingBook.get());
+            eventPublisher.publishEvent(new BookChangedEvent(ChangeType.DELETED, id, convertToDto(existingBook.get()), null));
         } else {
             throw new NoSuchElementException("Livre non trouvé avec l'id: " + id);
         }
     }
     
-    public List<BookDto> searchBooks(String titre, String auteur, String genre) {
-        return bookRepository.searchBooks(titre, auteur, genre).stream()
-                .map(this::convertToDto)
+    // available : null = tous les livres, true = disponibles seulement, false = empruntés seulement
+    public List<BookDto> searchBooks(String titre, String auteur, String genre, Boolean available, Integer page, Integer size) {
+        // Toujours paginé : une seule page (au plus MAX_PAGE_SIZE livres) est chargée, en une requête IN bornée
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        long from = (long) Math.max(0, page == null ? 0 : page) * pageSize;
+        boolean filtered = hasText(titre) || hasText(auteur) || hasText(genre);
+        if (!filtered && available != null && availabilityIndex.isReady()) {
+            // Filtre de disponibilité seul : les IDs de la page sont lus directement dans le bitmap
+            return loadInOrder(availabilityIndex.ids(available, from, pageSize));
+        }
+        
+        List<Long> rankedIds = searchIndex.search(titre, auteur, genre);
+        if (rankedIds != null && available != null) {
+            rankedIds = availabilityIndex.isReady() ? availabilityIndex.filter(rankedIds, available) : null;
+        }
+        if (rankedIds == null) {
+            // Index indisponible ou critère trop court : on retombe sur la requête JPQL
+            List<BookDto> results = bookRepository.searchBooks(titre, auteur, genre).stream()
+                    .filter(book -> available == null || book.isDisponible() == available)
+                    .map(this::convertToDto)
+                    .collect(Collectors.toList());
+            return paginate(results, from, pageSize);
+        }
+        
+        // Seule la page demandée est chargée depuis la base, dans l'ordre de pertinence
+        return loadInOrder(paginate(rankedIds, from, pageSize));
+    }
+    
+    // Titres et auteurs commençant par le préfixe saisi, pour l'autocomplétion
+    public SuggestionsDto getSuggestions(String prefix, Integer limit) {
+        int top = limit == null ? DEFAULT_SUGGESTIONS : Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+        if (!hasText(prefix)) {
+            return new SuggestionsDto(List.of(), List.of());
+        }
+        if (suggestIndex.isReady()) {
+            return new SuggestionsDto(suggestIndex.suggestTitres(prefix, top), suggestIndex.suggestAuteurs(prefix, top));
+        }
+        // Index en cours de construction au démarrage
+        return new SuggestionsDto(bookRepository.findTitresStartingWith(prefix.trim(), Limit.of(top)),
+                bookRepository.findAuteursStartingWith(prefix.trim(), Limit.of(top)));
+    }
+    
+    // Disponibilité d'un lot de livres, lue dans le bitmap en mémoire
+    public AvailabilityCheckDto checkAvailability(List<Long> ids) {
+        List<Long> distinctIds = ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
                 .collect(Collectors.toList());
+        if (distinctIds.size() > MAX_AVAILABILITY_CHECK) {
+            throw new IllegalArgumentException("Trop d'IDs demandés (max " + MAX_AVAILABILITY_CHECK + "): " + distinctIds.size());
+        }
+        
+        Map<Long, Boolean> availability;
+        if (availabilityIndex.isReady()) {
+            availability = new HashMap<>();
+            for (Long id : distinctIds) {
+                Boolean disponible = availabilityIndex.isAvailable(id);
+                if (disponible != null) {
+                    availability.put(id, disponible);
+                }
+            }
+        } else {
+            // Bitmap en cours de construction au démarrage
+            availability = bookRepository.findAllById(distinctIds).stream()
+                    .collect(Collectors.toMap(Book::getId, Book::isDisponible));
+        }
+        
+        List<Long> availableIds = new ArrayList<>();
+        List<Long> unavailableIds = new ArrayList<>();
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : distinctIds) {
+            Boolean disponible = availability.get(id);
+            if (disponible == null) {
+                missingIds.add(id);
+            } else if (disponible) {
+                availableIds.add(id);
+            } else {
+                unavailableIds.add(id);
+            }
+        }
+        return new AvailabilityCheckDto(availableIds, unavailableIds, missingIds);
     }
     
+    public AvailabilityCountDto getAvailabilityCount() {
+        if (availabilityIndex.isReady()) {
+            return availabilityIndex.counts();
+        }
+        long total = bookRepository.count();
+        long disponibles = bookRepository.countByDisponibleTrue();
+        return new AvailabilityCountDto(total, disponibles, total - disponibles);
+    }
+    
+    // Nombre de livres par genre, par auteur et par disponibilité, éventuellement restreint aux critères de recherche.
+    // Sans critère, les compteurs maintenus en mémoire sont lus tels quels, sans parcourir le catalogue.
+    public BookFacetsDto getFacets(String titre, String auteur, String genre, Integer size) {
+        int top = size == null ? DEFAULT_FACET_SIZE : Math.max(1, Math.min(size, MAX_FACET_SIZE));
+        boolean filtered = hasText(titre) || hasText(auteur) || hasText(genre);
+        
+        if (!filtered) {
+            if (facetIndex.isReady()) {
+                return facetIndex.facets(top);
+            }
+            // Compteurs en cours de construction au démarrage : agrégats calculés par la base
+            Map<String, Long> genres = new HashMap<>();
+            bookRepository.countByGenre().forEach(row -> BookFacetIndex.increment(genres, (String) row[0], (Long) row[1]));
+            Map<String, Long> auteurs = new HashMap<>();
+            bookRepository.countByAuteur().forEach(row -> BookFacetIndex.increment(auteurs, (String) row[0], (Long) row[1]));
+            return BookFacetIndex.toDto(bookRepository.count(), bookRepository.countByDisponibleTrue(), genres, auteurs, top);
+        }
+        
+        List<Long> ids = searchIndex.search(titre, auteur, genre);
+        if (ids != null && facetIndex.isReady()) {
+            return facetIndex.facets(ids, top);
+        }
+        // Index indisponible ou critère trop court : on compte les résultats de la requête JPQL
+        Map<String, Long> genres = new HashMap<>();
+        Map<String, Long> auteurs = new HashMap<>();
+        long disponibles = 0;
+        List<Book> books = bookRepository.searchBooks(titre, auteur, genre);
+        for (Book book : books) {
+            BookFacetIndex.increment(genres, book.getGenre(), 1);
+            BookFacetIndex.increment(auteurs, book.getAuteur(), 1);
+            if (book.isDisponible()) {
+                disponibles++;
+            }
+        }
+        return BookFacetIndex.toDto(books.size(), disponibles, genres, auteurs, top);
+    }
+    
+    // Construit les index en mémoire (recherche, facettes, disponibilité et autocomplétion) au démarrage en parcourant le catalogue une seule fois
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void buildSearchIndex() {
+        searchIndex.clear();
+        facetIndex.clear();
+        availabilityIndex.clear();
+        suggestIndex.clear();
+        try (Stream<Book> books = bookRepository.streamAllOrderById()) {
+            books.forEach(book -> {
+                indexBook(book);
+                entityManager.detach(book);
+            });
+        }
+        searchIndex.markReady();
+        facetIndex.markReady();
+        availabilityIndex.markReady();
+        suggestIndex.markReady();
+    }
+    
+    @Transactional
     public BookDto updateBookAvailability(Long id, AvailabilityRequest request) {
         Optional<Book> existingBook = bookRepository.findById(id);
         if (existingBook.isPresent()) {
             Book book = existingBook.get();
+            BookDto before = convertToDto(book);
             book.setDisponible(request.isDisponible());
-            Book updatedBook = bookRepository.save(book);
-            return convertToDto(updatedBook);
+            // Changement manuel : la réservation en cours, s'il y en a une, n'est plus celle de l'emprunt
+            book.setReservation(null);
+            Book updatedBook = bookRepository.saveAndFlush(book);
+            BookDto updated = convertToDto(updatedBook);
+            if (before.isDisponible() != updated.isDisponible()) {
+                eventPublisher.publishEvent(new BookChangedEvent(ChangeType.AVAILABILITY, id, before, updated));
+            }
+            return updated;
         } else {
             throw new NoSuchElementException("Livre non trouvé avec l'id: " + id);
         }
     }
     
+    // Réserve un livre pour un emprunt : un seul UPDATE conditionnel, perdant en cas de course.
+    // Le jeton identifie l'emprunt ; seule une libération portant le même jeton rendra le livre disponible.
+    @Transactional
+    public BookDto reserveBook(Long id, String reservation) {
+        if (bookRepository.reserve(id, reservation, LocalDateTime.now()) == 0) {
+            if (!bookRepository.existsById(id)) {
+                throw new NoSuchElementException("Livre non trouvé avec l'id: " + id);
+            }
+            throw new IllegalStateException("Le livre n'est pas disponible pour l'emprunt: " + id);
+        }
+        return availabilityChanged(id, false);
+    }
+    
+    // Libère un livre au retour d'un emprunt. Sans effet (409) si le livre est déjà disponible ou a été
+    // réservé entre-temps par un autre emprunt : une libération rejouée ne libère pas l'emprunt suivant.
+    @Transactional
+    public BookDto releaseBook(Long id, String reservation) {
+        if (bookRepository.release(id, reservation == null ? "" : reservation, LocalDateTime.now()) == 0) {
+            if (!bookRepository.existsById(id)) {
+                throw new NoSuchElementException("Livre non trouvé avec l'id: " + id);
+            }
+            throw new IllegalStateException("Le livre est déjà disponible ou réservé par un autre emprunt: " + id);
+        }
+        return availabilityChanged(id, true);
+    }
+    
+    // Réserve plusieurs livres en un seul UPDATE, avec le même jeton ; chaque livre est réservé ou signalé indépendamment
+    @Transactional
+    public AvailabilityBatchDto reserveBooks(List<Long> ids, String reservation) {
+        List<Long> distinctIds = ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("reservation", reservation)
+                .addValue("ids", distinctIds);
+        return compareAndSetDisponible(distinctIds, false, BATCH_RESERVE_SQL, params);
+    }
+    
+    // Libère plusieurs livres en un seul UPDATE ; chaque libération porte le jeton de sa propre réservation
+    @Transactional
+    public AvailabilityBatchDto releaseBooks(List<BookReleaseDto> releases) {
+        List<Object[]> pairs = releases.stream()
+                .filter(release -> release != null && release.getBookId() != null)
+                .map(release -> new Object[] {release.getBookId(),
+                        release.getReservation() == null ? "" : release.getReservation()})
+                .collect(Collectors.toList());
+        List<Long> distinctIds = pairs.stream()
+                .map(pair -> (Long) pair[0])
+                .distinct()
+                .collect(Collectors.toList());
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("releases", pairs);
+        return compareAndSetDisponible(distinctIds, true, BATCH_RELEASE_SQL, params);
+    }
+    
+    private AvailabilityBatchDto compareAndSetDisponible(List<Long> distinctIds, boolean disponible,
+                                                         String sql, MapSqlParameterSource params) {
+        if (distinctIds.size() > MAX_AVAILABILITY_BATCH) {
+            throw new IllegalArgumentException("Trop d'IDs demandés (max " + MAX_AVAILABILITY_BATCH + "): " + distinctIds.size());
+        }
+        AvailabilityBatchDto result = new AvailabilityBatchDto();
+        if (distinctIds.isEmpty()) {
+            return result;
+        }
+        
+        params.addValue("now", Timestamp.valueOf(LocalDateTime.now()));
+        Set<Long> changed = new HashSet<>(namedParameterJdbcTemplate.queryForList(sql, params, Long.class));
+        
+        // État après mise à jour des livres modifiés comme des autres, en une requête
+        Map<Long, Book> found = bookRepository.findAllById(distinctIds).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        for (Long id : distinctIds) {
+            Book book = found.get(id);
+            if (book == null) {
+                result.getMissingIds().add(id);
+            } else if (changed.contains(id)) {
+                BookDto updated = convertToDto(book);
+                BookDto before = new BookDto();
+                BeanUtils.copyProperties(updated, before);
+                before.setDisponible(!disponible);
+                eventPublisher.publishEvent(new BookChangedEvent(ChangeType.AVAILABILITY, id, before, updated));
+                result.getBooks().add(updated);
+            } else {
+                result.getConflictIds().add(id);
+            }
+        }
+        return result;
+    }
+    
+    private BookDto availabilityChanged(Long id, boolean disponible) {
+        BookDto updated = getBookById(id);
+        BookDto before = new BookDto();
+        BeanUtils.copyProperties(updated, before);
+        before.setDisponible(!disponible);
+        eventPublisher.publishEvent(new BookChangedEvent(ChangeType.AVAILABILITY, id, before, updated));
+        return updated;
+    }
+    
+    private void indexBook(Book book) {
+        searchIndex.index(book.getId(), book.getTitre(), book.getAuteur(), book.getGenre());
+        facetIndex.load(book.getId(), book.getGenre(), book.getAuteur(), book.isDisponible(), book.getVersion());
+        availabilityIndex.load(book.getId(), book.isDisponible(), book.getVersion());
+        suggestIndex.add(book.getTitre(), book.getAuteur());
+    }
+    
+    // Charge les livres d'une liste d'IDs en une requête, en conservant l'ordre de la liste
+    private List<BookDto> loadInOrder(List<Long> ids) {
+        Map<Long, Book> books = bookRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        return ids.stream()
+                .map(books::get)
+                .filter(Objects::nonNull)
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+    }
+    
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+    
+    private static <T> List<T> paginate(List<T> items, long from, int pageSize) {
+        if (from >= items.size()) {
+            return List.of();
+        }
+        return items.subList((int) from, (int) Math.min(items.size(), from + pageSize));
+    }
+    
+    private String encodeCursor(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(lastId).getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private long decodeCursor(String cursor) {
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Curseur de pagination invalide: " + cursor);
+        }
+    }
+    
     private BookDto convertToDto(Book book) {
         BookDto bookDto = new BookDto();
         BeanUtils.copyProperties(book, bookDto);
@@ -86,7 +537,7 @@ public class BookService {
     
     private Book convertToEntity(BookDto bookDto) {
         Book book = new Book();
-        BeanUtils.copyProperties(bookDto, book);
+        BeanUtils.copyProperties(bookDto, book, "version", "dateModification");
         return book;
     }
 }
\ No newline at end of file
@@ -0,0 +1,190 @@
+package com.book.book_service.service;
+
+import com.book.book_service.dto.BookChangeDto;
+import com.book.book_service.dto.BookDto;
+import com.book.book_service.dto.ChangeFeedDto;
+import com.book.book_service.event.BookChangedEvent;
+import com.book.book_service.model.Book;
+import com.book.book_service.model.BookChange;
+import com.book.book_service.repository.BookChangeRepository;
+import com.book.book_service.repository.BookRepository;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.async.DeferredResult;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Journal des modifications du catalogue, lu par les consommateurs via GET /api/books/changes?since=N
+@Service
+public class ChangeFeedService {
+
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+    public static final long MAX_WAIT_MILLIS = 30_000;
+
+    // Verrou consultatif PostgreSQL tenu de l'écriture du journal jusqu'au commit : les numéros de
+    // séquence deviennent visibles dans l'ordre croissant, un lecteur ne peut donc pas en sauter un.
+    // Coût : les transactions qui modifient le catalogue valident une par une (le verrou n'est pris qu'au
+    // moment du commit, après le reste du traitement, mais il couvre l'aller-retour du commit lui-même).
+    private static final long FEED_LOCK_KEY = 0x626F6F6BL;
+
+    private static final String INSERT_SQL = "INSERT INTO book_changes (book_id, type, changed_at) VALUES (?, ?, ?)";
+
+    @Autowired
+    private BookChangeRepository bookChangeRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TaskExecutor taskExecutor;
+
+    // Lecteurs en attente (long-poll) de nouvelles modifications
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+
+    // Les modifications d'une transaction sont regroupées et écrites en un seul lot juste avant le commit
+    @EventListener
+    public void onBookChanged(BookChangedEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            write(List.of(event));
+            notifyWaiters();
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        List<BookChangedEvent> pending = (List<BookChangedEvent>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<BookChangedEvent> changes = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, changes);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    write(changes);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(ChangeFeedService.this);
+                    if (status == STATUS_COMMITTED) {
+                        notifyWaiters();
+                    }
+                }
+            });
+            pending = changes;
+        }
+        pending.add(event);
+    }
+
+    // Numéro de la dernière modification enregistrée : change dès que le catalogue change
+    public long getLastSeq() {
+        return bookChangeRepository.findLastSeq();
+    }
+
+    public ChangeFeedDto getChanges(long since, int limit) {
+        List<BookChange> changes = bookChangeRepository.findBySeqGreaterThanOrderBySeqAsc(since, Limit.of(limit));
+        if (changes.isEmpty()) {
+            return new ChangeFeedDto(List.of(), since);
+        }
+
+        // État actuel des livres concernés, en une seule requête
+        Set<Long> bookIds = changes.stream().map(BookChange::getBookId).collect(Collectors.toSet());
+        Map<Long, Book> books = bookRepository.findAllById(bookIds).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+
+        List<BookChangeDto> dtos = new ArrayList<>();
+        for (BookChange change : changes) {
+            BookChangeDto dto = new BookChangeDto();
+            BeanUtils.copyProperties(change, dto);
+            Book book = books.get(change.getBookId());
+            if (book != null) {
+                BookDto bookDto = new BookDto();
+                BeanUtils.copyProperties(book, bookDto);
+                dto.setBook(bookDto);
+            }
+            dtos.add(dto);
+        }
+        return new ChangeFeedDto(dtos, changes.get(changes.size() - 1).getSeq());
+    }
+
+    // Répond immédiatement s'il y a des modifications après "since", sinon attend jusqu'à waitMillis
+    public DeferredResult<ChangeFeedDto> pollChanges(long since, int limit, long waitMillis) {
+        if (waitMillis <= 0) {
+            DeferredResult<ChangeFeedDto> result = new DeferredResult<>();
+            result.setResult(getChanges(since, limit));
+            return result;
+        }
+
+        DeferredResult<ChangeFeedDto> result = new DeferredResult<>(waitMillis);
+        Waiter waiter = new Waiter(since, limit, result);
+        result.onTimeout(() -> result.setResult(new ChangeFeedDto(List.of(), since)));
+        result.onCompletion(() -> waiters.remove(waiter));
+
+        // Enregistré avant la lecture pour ne pas manquer une modification validée entre les deux
+        waiters.add(waiter);
+        ChangeFeedDto changes = getChanges(since, limit);
+        if (!changes.getChanges().isEmpty()) {
+            result.setResult(changes);
+        }
+        return result;
+    }
+
+    private void write(List<BookChangedEvent> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.query("SELECT pg_advisory_xact_lock(?)", rs -> null, FEED_LOCK_KEY);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, changes, changes.size(), (ps, change) -> {
+            ps.setLong(1, change.getBookId());
+            ps.setString(2, change.getType().name());
+            ps.setTimestamp(3, now);
+        });
+    }
+
+    private void notifyWaiters() {
+        Waiter waiter;
+        while ((waiter = waiters.poll()) != null) {
+            wake(waiter);
+        }
+    }
+
+    private void wake(Waiter waiter) {
+        taskExecutor.execute(() -> {
+            if (waiter.result().isSetOrExpired()) {
+                return;
+            }
+            ChangeFeedDto changes = getChanges(waiter.since(), waiter.limit());
+            if (!changes.getChanges().isEmpty()) {
+                waiter.result().setResult(changes);
+                return;
+            }
+            waiters.add(waiter);
+            // Une modification validée entre la lecture et le réenregistrement a notifié la file sans ce lecteur :
+            // relecture du dernier numéro, et nouvelle lecture si le lecteur est encore dans la file
+            if (getLastSeq() > waiter.since() && waiters.remove(waiter)) {
+                wake(waiter);
+            }
+        });
+    }
+
+    private record Waiter(long since, int limit, DeferredResult<ChangeFeedDto> result) {
+    }
+}
@@ -0,0 +1,45 @@
+package com.book.book_service.web;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+// Cache-Control des lectures du catalogue, posé avant le traitement : Spring Security n'ajoute alors pas son
+// "no-cache, no-store" par défaut. Les caches partagés (passerelle) gardent la réponse s-maxage ; les navigateurs
+// revalident à chaque fois avec l'ETag (max-age=0). Le flux et le journal des modifications gardent no-store.
+@Component
+public class CatalogCacheControlFilter extends OncePerRequestFilter {
+
+    private static final String CATALOG_PREFIX = "/api/books";
+    private static final Set<String> UNCACHED = Set.of("/api/books/stream", "/api/books/changes");
+
+    @Value("${catalog.cache.shared-max-age:30s}")
+    private Duration sharedMaxAge;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !"GET".equals(request.getMethod())
+                || !(path.equals(CATALOG_PREFIX) || path.startsWith(CATALOG_PREFIX + "/"))
+                || UNCACHED.contains(path);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.maxAge(Duration.ZERO)
+                .sMaxAge(sharedMaxAge)
+                .cachePublic()
+                .getHeaderValue());
+        chain.doFilter(request, response);
+    }
+}
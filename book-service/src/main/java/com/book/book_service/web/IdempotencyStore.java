@@ -0,0 +1,214 @@
+package com.book.book_service.web;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+// Requêtes POST rejouées avec le même en-tête Idempotency-Key (nouvelle tentative du client ou de la passerelle
+// après une expiration) : la première réponse est enregistrée dans la table idempotency_keys et renvoyée telle
+// quelle, sans refaire le traitement, quelle que soit l'instance qui reçoit la tentative.
+// La clé est réservée avant le traitement par l'insertion de sa ligne (clé primaire) : une requête reçue pendant
+// que la première est en cours attend sa réponse au lieu de la relancer. Les lignes expirées sont purgées
+// périodiquement, et une clé expirée peut être réutilisée avant la purge.
+@Component
+public class IdempotencyStore {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    static final int MAX_KEY_LENGTH = 255;
+
+    private static final long POLL_INTERVAL_MS = 50;
+
+    // Insère la clé, ou reprend une clé expirée ou abandonnée en cours de traitement ; 0 ligne si elle est tenue ailleurs
+    private static final String CLAIM_SQL = "INSERT INTO idempotency_keys (id, empreinte, jeton, en_cours_jusqua, expire_le) "
+            + "VALUES (:id, :empreinte, :jeton, :enCoursJusqua, :expireLe) "
+            + "ON CONFLICT (id) DO UPDATE SET empreinte = EXCLUDED.empreinte, jeton = EXCLUDED.jeton, "
+            + "en_cours_jusqua = EXCLUDED.en_cours_jusqua, expire_le = EXCLUDED.expire_le, "
+            + "statut = NULL, entetes = NULL, corps = NULL, type_corps = NULL "
+            + "WHERE idempotency_keys.expire_le <= :now "
+            + "OR (idempotency_keys.statut IS NULL AND idempotency_keys.en_cours_jusqua <= :now)";
+
+    private static final String FIND_SQL = "SELECT empreinte, expire_le, statut, entetes, corps, type_corps "
+            + "FROM idempotency_keys WHERE id = :id";
+
+    private static final String COMPLETE_SQL = "UPDATE idempotency_keys SET statut = :statut, entetes = :entetes, "
+            + "corps = :corps, type_corps = :typeCorps WHERE id = :id AND jeton = :jeton";
+
+    private static final String RELEASE_SQL = "DELETE FROM idempotency_keys WHERE id = :id AND jeton = :jeton";
+
+    private static final String PURGE_SQL = "DELETE FROM idempotency_keys WHERE expire_le <= :now";
+
+    private record Recorded(String fingerprint, Instant expiresAt, Integer status, String headers, String body,
+                            String bodyType) {
+    }
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${idempotency.ttl:1h}")
+    private Duration ttl;
+
+    // Attente maximale d'une requête en cours avec la même clé
+    @Value("${idempotency.wait-timeout:10s}")
+    private Duration waitTimeout;
+
+    // Au-delà, une requête encore en cours est considérée abandonnée (instance arrêtée) : la clé peut être reprise
+    @Value("${idempotency.processing-timeout:1m}")
+    private Duration processingTimeout;
+
+    // Exécute l'action une seule fois par clé (dans le périmètre scope, par exemple "POST /api/books").
+    // Sans clé, l'action est exécutée normalement. Une clé réutilisée pour une autre requête est refusée
+    // (IllegalArgumentException) ; une requête encore en cours après wait-timeout donne une IllegalStateException.
+    public <T> ResponseEntity<T> execute(String scope, String key, Object request, Supplier<ResponseEntity<T>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Clé d'idempotence trop longue (max " + MAX_KEY_LENGTH + " caractères)");
+        }
+
+        String id = scope + " " + key;
+        String fingerprint = fingerprint(request);
+        Instant deadline = Instant.now().plus(waitTimeout);
+        while (true) {
+            String token = claim(id, fingerprint);
+            if (token != null) {
+                return run(id, token, action);
+            }
+            Recorded existing = find(id);
+            if (existing == null || !existing.expiresAt().isAfter(Instant.now())) {
+                // Clé libérée ou expirée entre-temps : nouvelle tentative de réservation
+                continue;
+            }
+            if (!fingerprint.equals(existing.fingerprint())) {
+                throw new IllegalArgumentException("Clé d'idempotence déjà utilisée pour une autre requête");
+            }
+            if (existing.status() != null) {
+                return replay(existing);
+            }
+            if (Instant.now().isAfter(deadline)) {
+                throw new IllegalStateException("Une requête avec la même clé d'idempotence est encore en cours");
+            }
+            pause();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${idempotency.purge-interval:10m}")
+    public void purgeExpired() {
+        namedParameterJdbcTemplate.update(PURGE_SQL, new MapSqlParameterSource("now", Timestamp.from(Instant.now())));
+    }
+
+    // Renvoie le jeton de cette réservation, ou null si la clé est tenue ailleurs
+    private String claim(String id, String fingerprint) {
+        Instant now = Instant.now();
+        String token = UUID.randomUUID().toString();
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("id", id)
+                .addValue("empreinte", fingerprint)
+                .addValue("jeton", token)
+                .addValue("enCoursJusqua", Timestamp.from(now.plus(processingTimeout)))
+                .addValue("expireLe", Timestamp.from(now.plus(ttl)))
+                .addValue("now", Timestamp.from(now));
+        return namedParameterJdbcTemplate.update(CLAIM_SQL, params) == 1 ? token : null;
+    }
+
+    private Recorded find(String id) {
+        List<Recorded> rows = namedParameterJdbcTemplate.query(FIND_SQL, new MapSqlParameterSource("id", id),
+                (rs, rowNum) -> new Recorded(rs.getString("empreinte"), rs.getTimestamp("expire_le").toInstant(),
+                        (Integer) rs.getObject("statut"), rs.getString("entetes"), rs.getString("corps"),
+                        rs.getString("type_corps")));
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    private <T> ResponseEntity<T> run(String id, String token, Supplier<ResponseEntity<T>> action) {
+        MapSqlParameterSource mine = new MapSqlParameterSource()
+                .addValue("id", id)
+                .addValue("jeton", token);
+        ResponseEntity<T> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            // Rien n'est gardé : la prochaine tentative, ou une requête en attente, refait le traitement
+            namedParameterJdbcTemplate.update(RELEASE_SQL, mine);
+            throw e;
+        }
+        if (response.getStatusCode().is5xxServerError()) {
+            // Erreur passagère (service indisponible, échéance dépassée) : pas de rejeu pour les tentatives suivantes
+            namedParameterJdbcTemplate.update(RELEASE_SQL, mine);
+        } else {
+            Object body = response.getBody();
+            namedParameterJdbcTemplate.update(COMPLETE_SQL, mine
+                    .addValue("statut", response.getStatusCode().value())
+                    .addValue("entetes", write(response.getHeaders()))
+                    .addValue("corps", body == null ? null : write(body))
+                    .addValue("typeCorps", body == null ? null : body.getClass().getName()));
+        }
+        return response;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> ResponseEntity<T> replay(Recorded recorded) {
+        HttpHeaders headers = new HttpHeaders();
+        try {
+            objectMapper.readValue(recorded.headers(), new TypeReference<LinkedHashMap<String, List<String>>>() { })
+                    .forEach(headers::addAll);
+            Object body = recorded.body() == null ? null
+                    : objectMapper.readValue(recorded.body(), Class.forName(recorded.bodyType()));
+            return ResponseEntity.status(recorded.status())
+                    .headers(headers)
+                    .header(REPLAYED_HEADER, "true")
+                    .body((T) body);
+        } catch (JsonProcessingException | ClassNotFoundException e) {
+            throw new IllegalStateException("Réponse enregistrée illisible pour la clé d'idempotence", e);
+        }
+    }
+
+    // Empreinte de la requête : une nouvelle tentative doit avoir le même corps que la première
+    private String fingerprint(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(write(request).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Requête non sérialisable pour l'idempotence", e);
+        }
+    }
+
+    private static void pause() {
+        try {
+            Thread.sleep(POLL_INTERVAL_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Attente de la requête avec la même clé d'idempotence interrompue");
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.book.book_service;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Bean;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+// PostgreSQL jetable pour les tests d'intégration : la datasource est branchée dessus par @ServiceConnection
+@TestConfiguration(proxyBeanMethods = false)
+public class PostgresTestConfig {
+
+	@Bean
+	@ServiceConnection
+	PostgreSQLContainer<?> postgres() {
+		return new PostgreSQLContainer<>("postgres:16-alpine");
+	}
+}
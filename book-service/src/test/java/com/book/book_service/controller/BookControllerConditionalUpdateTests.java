@@ -0,0 +1,79 @@
+package com.book.book_service.controller;
+
+import com.book.book_service.PostgresTestConfig;
+import com.book.book_service.dto.BookDto;
+import com.book.book_service.service.BookService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "eureka.client.enabled=false")
+@AutoConfigureMockMvc
+@Import(PostgresTestConfig.class)
+@Testcontainers(disabledWithoutDocker = true)
+class BookControllerConditionalUpdateTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Autowired
+	private BookService bookService;
+
+	@Test
+	void successivePutsChainTheirIfMatchOnThePreviousETag() throws Exception {
+		BookDto book = new BookDto();
+		book.setTitre("Germinal");
+		book.setAuteur("Émile Zola");
+		book.setGenre("Roman");
+		book.setIsbn("978-2-07-041166-" + System.nanoTime() % 10_000);
+		Long id = bookService.createBook(book).getId();
+
+		String etag0 = mockMvc.perform(get("/api/books/" + id))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+		String etag1 = mockMvc.perform(put("/api/books/" + id)
+						.header(HttpHeaders.IF_MATCH, etag0)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(body(book, "Germinal (édition 1)")))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.titre").value("Germinal (édition 1)"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertNotEquals(etag0, etag1);
+
+		String etag2 = mockMvc.perform(put("/api/books/" + id)
+						.header(HttpHeaders.IF_MATCH, etag1)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(body(book, "Germinal (édition 2)")))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+		assertNotEquals(etag1, etag2);
+
+		// L'ETag renvoyé par le dernier PUT est celui que le GET renvoie ensuite
+		mockMvc.perform(get("/api/books/" + id).header(HttpHeaders.IF_NONE_MATCH, etag2))
+				.andExpect(status().isNotModified());
+		// Et l'ancien ETag est bien refusé
+		mockMvc.perform(put("/api/books/" + id)
+						.header(HttpHeaders.IF_MATCH, etag1)
+						.contentType(MediaType.APPLICATION_JSON)
+						.content(body(book, "Germinal (édition 3)")))
+				.andExpect(status().isPreconditionFailed());
+	}
+
+	private static String body(BookDto book, String titre) {
+		return "{\"titre\":\"" + titre + "\",\"auteur\":\"" + book.getAuteur() + "\",\"genre\":\"" + book.getGenre()
+				+ "\",\"isbn\":\"" + book.getIsbn() + "\",\"disponible\":true}";
+	}
+}
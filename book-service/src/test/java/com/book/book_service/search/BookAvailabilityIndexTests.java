@@ -0,0 +1,73 @@
+package com.book.book_service.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookAvailabilityIndexTests {
+
+	private BookAvailabilityIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new BookAvailabilityIndex();
+		index.load(1L, true, 0L);
+		index.load(2L, true, 0L);
+		index.load(3L, false, 0L);
+		index.markReady();
+	}
+
+	@Test
+	void olderNotificationDoesNotOverwriteANewerOne() {
+		index.put(1L, false, 2L);
+		index.put(1L, true, 1L);
+
+		assertFalse(index.isAvailable(1L));
+		assertEquals(List.of(2L), index.ids(true, 0, 10));
+	}
+
+	@Test
+	void staleUpdateAfterDeletionDoesNotBringTheBookBack() {
+		index.put(2L, false, 1L);
+		index.remove(2L, 1L);
+		// Modification de la version 1 notifiée après la suppression
+		index.put(2L, false, 1L);
+
+		assertNull(index.isAvailable(2L));
+		assertEquals(2, index.counts().getTotal());
+	}
+
+	@Test
+	void catalogLoadDoesNotOverwriteAChangeNotifiedDuringTheRebuild() {
+		index.clear();
+		index.put(1L, false, 3L);
+		index.load(1L, true, 2L);
+		index.markReady();
+
+		assertFalse(index.isAvailable(1L));
+	}
+
+	@Test
+	void versionsAreOnlyKeptForTheOrderingWindow() {
+		AtomicLong now = new AtomicLong();
+		RecentVersions versions = new RecentVersions(now::get);
+		versions.applied(1L, 5L);
+		versions.deleted(2L, 3L);
+		assertTrue(versions.isStale(1L, 4L));
+		assertTrue(versions.isStale(2L, 3L));
+		assertFalse(versions.isStale(1L, 5L));
+
+		now.addAndGet(RecentVersions.ORDERING_WINDOW + 1);
+		versions.applied(3L, 1L);
+
+		assertEquals(1, versions.size());
+		assertFalse(versions.isStale(1L, 4L));
+	}
+}
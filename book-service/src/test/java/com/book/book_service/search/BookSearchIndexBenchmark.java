@@ -0,0 +1,120 @@
+package com.book.book_service.search;
+
+import com.book.book_service.PostgresTestConfig;
+import com.book.book_service.repository.BookRepository;
+import com.book.book_service.service.BookService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Compare l'index de trigrammes à la requête LOWER(col) LIKE '%x%' qu'il remplace (BookRepository.searchBooks),
+// sur un vrai PostgreSQL. Côté index, la mesure inclut le chargement de la première page comme dans BookService.
+// Lancement : mvn test -Dtest=BookSearchIndexBenchmark -Dbenchmark=true (Docker requis)
+@SpringBootTest(properties = "eureka.client.enabled=false")
+@Import(PostgresTestConfig.class)
+@Testcontainers(disabledWithoutDocker = true)
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BookSearchIndexBenchmark {
+
+	private static final String[] WORDS = {
+			"amour", "guerre", "paix", "nuit", "jour", "mer", "étoile", "château", "forêt", "rivière",
+			"mystère", "secret", "voyage", "histoire", "royaume", "dragon", "enfant", "père", "mère", "ville",
+			"lumière", "ombre", "silence", "cœur", "temps", "monde", "rêve", "feu", "glace", "île"
+	};
+	private static final String[] AUTHORS = {
+			"Hugo", "Zola", "Dumas", "Verne", "Camus", "Sartre", "Proust", "Balzac", "Flaubert", "Sand",
+			"Colette", "Duras", "Yourcenar", "Modiano", "Ernaux", "Maupassant", "Stendhal", "Rimbaud"
+	};
+	private static final String[] GENRES = {"Roman", "Poésie", "Théâtre", "Essai", "Fantasy", "Policier"};
+	private static final int QUERIES = 20;
+	private static final int INSERT_BATCH = 10_000;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private BookRepository bookRepository;
+
+	@Test
+	void compareWithRepositoryLikeQuery() {
+		// Catalogue agrandi à chaque palier : les livres déjà insérés sont conservés
+		Random random = new Random(42);
+		BookSearchIndex index = new BookSearchIndex();
+		int inserted = 0;
+		for (int size : new int[] {10_000, 100_000, 1_000_000}) {
+			inserted = insert(index, random, inserted, size);
+			jdbcTemplate.execute("ANALYZE books");
+			index.markReady();
+			run(index, random, size);
+		}
+	}
+
+	private int insert(BookSearchIndex index, Random random, int from, int to) {
+		Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+		List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+		for (int i = from; i < to; i++) {
+			String titre = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]
+					+ " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+			String auteur = AUTHORS[random.nextInt(AUTHORS.length)] + " " + i % 997;
+			String genre = GENRES[random.nextInt(GENRES.length)];
+			batch.add(new Object[] {titre, auteur, genre, "bench-" + i, true, now, now});
+			if (batch.size() == INSERT_BATCH || i == to - 1) {
+				jdbcTemplate.batchUpdate("INSERT INTO books (titre, auteur, genre, isbn, disponible, date_ajout, "
+						+ "date_modification, version) VALUES (?, ?, ?, ?, ?, ?, ?, 0)", batch);
+				batch.clear();
+			}
+		}
+		// L'index est alimenté depuis la base, avec les IDs attribués par PostgreSQL
+		jdbcTemplate.query("SELECT id, titre, auteur, genre FROM books WHERE id > ? ORDER BY id",
+				(RowCallbackHandler) rs -> index.index(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4)),
+				lastIndexedId(from));
+		return to;
+	}
+
+	private long lastIndexedId(int from) {
+		if (from == 0) {
+			return 0L;
+		}
+		return jdbcTemplate.queryForObject("SELECT id FROM books WHERE isbn = ?", Long.class, "bench-" + (from - 1));
+	}
+
+	private void run(BookSearchIndex index, Random random, int size) {
+		String[] queries = new String[QUERIES];
+		for (int q = 0; q < QUERIES; q++) {
+			queries[q] = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+		}
+		// Préchauffage du cache de PostgreSQL et du JIT
+		bookRepository.searchBooks(queries[0], null, null);
+		index.search(queries[0], null, null);
+
+		int indexed = 0;
+		long start = System.nanoTime();
+		for (String query : queries) {
+			List<Long> ids = index.search(query, null, null);
+			indexed += ids.size();
+			bookRepository.findAllById(ids.subList(0, Math.min(ids.size(), BookService.DEFAULT_PAGE_SIZE)));
+		}
+		double indexMs = (System.nanoTime() - start) / 1e6 / QUERIES;
+
+		int matched = 0;
+		start = System.nanoTime();
+		for (String query : queries) {
+			matched += bookRepository.searchBooks(query, null, null).size();
+		}
+		double likeMs = (System.nanoTime() - start) / 1e6 / QUERIES;
+
+		System.out.printf("%,9d livres : index + page %.3f ms/requête (%d résultats), LIKE %.3f ms/requête (%d résultats)%n",
+				size, indexMs, indexed, likeMs, matched);
+	}
+}
@@ -0,0 +1,72 @@
+package com.book.book_service.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookSearchIndexTests {
+
+	private BookSearchIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new BookSearchIndex();
+		index.index(1L, "Harry Potter à l'école des sorciers", "J.K. Rowling", "Fantasy");
+		index.index(2L, "Les Misérables", "Victor Hugo", "Roman");
+		index.index(3L, "Œuvres complètes de Victor Hugo", "Victor Hugo", "Poésie");
+		index.markReady();
+	}
+
+	@Test
+	void searchIgnoresAccentsAndCase() {
+		assertEquals(List.of(2L), index.search("MISERABLES", null, null));
+		assertEquals(List.of(3L), index.search("oeuvres", null, "poesie"));
+	}
+
+	@Test
+	void searchRanksPrefixMatchesFirst() {
+		index.index(4L, "Victor Hugo, une vie", "Jean Dupont", "Biographie");
+		assertEquals(List.of(4L, 3L), index.search("victor hugo", null, null));
+	}
+
+	@Test
+	void searchCombinesCriteria() {
+		assertEquals(List.of(1L), index.search("ecole", "rowling", "fanta"));
+		assertTrue(index.search("ecole", "hugo", null).isEmpty());
+	}
+
+	@Test
+	void searchFallsBackWhenQueryIsTooShortOrIndexNotReady() {
+		assertNull(index.search("hp", null, null));
+		assertNull(index.search(null, null, null));
+		index.clear();
+		assertNull(index.search("harry", null, null));
+	}
+
+	@Test
+	void updatesAndRemovalsAreReflected() {
+		index.index(2L, "Notre-Dame de Paris", "Victor Hugo", "Roman");
+		assertTrue(index.search("miserables", null, null).isEmpty());
+		assertEquals(List.of(2L), index.search("notre dame", null, null));
+
+		index.remove(2L);
+		assertEquals(List.of(3L), index.search(null, "hugo", null));
+		assertEquals(2, index.size());
+	}
+
+	@Test
+	void booksIndexedOutOfIdOrderAreAllFound() {
+		// Les listes de trigrammes restent triées quand un ID plus petit arrive après un plus grand
+		index.index(10L, "Les Contemplations", "Victor Hugo", "Poésie");
+		index.index(5L, "Les Contemplations", "Victor Hugo", "Poésie");
+		assertEquals(List.of(5L, 10L), index.search("contemplations", null, null));
+
+		index.remove(5L);
+		assertEquals(List.of(10L), index.search("contemplations", null, null));
+	}
+}
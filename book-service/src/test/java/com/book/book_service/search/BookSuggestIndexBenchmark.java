@@ -0,0 +1,69 @@
+package com.book.book_service.search;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// Latence de l'autocomplétion sur des préfixes de 1 à 6 caractères tirés du catalogue.
+// Lancement : mvn test -Dtest=BookSuggestIndexBenchmark -Dbenchmark=true
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BookSuggestIndexBenchmark {
+
+	private static final String[] WORDS = {
+			"amour", "guerre", "paix", "nuit", "jour", "mer", "étoile", "château", "forêt", "rivière",
+			"mystère", "secret", "voyage", "histoire", "royaume", "dragon", "enfant", "père", "mère", "ville",
+			"lumière", "ombre", "silence", "cœur", "temps", "monde", "rêve", "feu", "glace", "île"
+	};
+	private static final String[] AUTHORS = {
+			"Hugo", "Zola", "Dumas", "Verne", "Camus", "Sartre", "Proust", "Balzac", "Flaubert", "Sand",
+			"Colette", "Duras", "Yourcenar", "Modiano", "Ernaux", "Maupassant", "Stendhal", "Rimbaud"
+	};
+	private static final int QUERIES = 100_000;
+	private static final int LIMIT = 10;
+
+	@Test
+	void measureLatency() {
+		for (int size : new int[] {10_000, 100_000, 1_000_000}) {
+			run(size);
+		}
+	}
+
+	private void run(int size) {
+		Random random = new Random(42);
+		String[] titres = new String[size];
+		BookSuggestIndex index = new BookSuggestIndex();
+		for (int i = 0; i < size; i++) {
+			titres[i] = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]
+					+ " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+			index.add(titres[i], "Jean " + AUTHORS[random.nextInt(AUTHORS.length)] + " " + i % 997);
+		}
+		index.markReady();
+
+		String[] prefixes = new String[QUERIES];
+		for (int q = 0; q < QUERIES; q++) {
+			String titre = titres[random.nextInt(size)];
+			prefixes[q] = titre.substring(0, Math.min(titre.length(), 1 + random.nextInt(6)));
+		}
+
+		// Échauffement du JIT avant la mesure
+		for (String prefix : prefixes) {
+			index.suggestTitres(prefix, LIMIT);
+		}
+
+		long[] latencies = new long[QUERIES];
+		int results = 0;
+		for (int q = 0; q < QUERIES; q++) {
+			long start = System.nanoTime();
+			results += index.suggestTitres(prefixes[q], LIMIT).size();
+			results += index.suggestAuteurs(prefixes[q], LIMIT).size();
+			latencies[q] = System.nanoTime() - start;
+		}
+		Arrays.sort(latencies);
+
+		System.out.printf("%,9d titres : p50 %.1f µs, p99 %.1f µs, max %.1f µs (%d suggestions)%n",
+				size, latencies[QUERIES / 2] / 1e3, latencies[QUERIES * 99 / 100] / 1e3,
+				latencies[QUERIES - 1] / 1e3, results);
+	}
+}
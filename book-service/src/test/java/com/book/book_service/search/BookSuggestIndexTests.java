@@ -0,0 +1,48 @@
+package com.book.book_service.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookSuggestIndexTests {
+
+	private BookSuggestIndex index;
+
+	@BeforeEach
+	void setUp() {
+		index = new BookSuggestIndex();
+		index.add("Harry Potter à l'école des sorciers", "J.K. Rowling");
+		index.add("Harry Potter et la chambre des secrets", "J.K. Rowling");
+		index.add("Harry", "Anne Harrison");
+		index.add("Les Misérables", "Victor Hugo");
+		index.markReady();
+	}
+
+	@Test
+	void suggestsTitlesByNormalizedPrefix() {
+		assertEquals(List.of("Harry", "Harry Potter à l'école des sorciers"), index.suggestTitres("HARRY", 2));
+		assertEquals(List.of("Les Misérables"), index.suggestTitres("les mise", 10));
+		assertTrue(index.suggestTitres("potter", 10).isEmpty());
+	}
+
+	@Test
+	void suggestsAuthorsByAnyWordOfTheName() {
+		assertEquals(List.of("J.K. Rowling"), index.suggestAuteurs("row", 10));
+		assertEquals(List.of("Anne Harrison"), index.suggestAuteurs("harr", 10));
+		assertEquals(List.of("Victor Hugo"), index.suggestAuteurs("hug", 10));
+	}
+
+	@Test
+	void removeKeepsSuggestionWhileOtherBooksShareIt() {
+		index.remove("Harry Potter à l'école des sorciers", "J.K. Rowling");
+		assertEquals(List.of("J.K. Rowling"), index.suggestAuteurs("rowling", 10));
+
+		index.remove("Harry Potter et la chambre des secrets", "J.K. Rowling");
+		assertTrue(index.suggestAuteurs("rowling", 10).isEmpty());
+		assertEquals(List.of("Harry"), index.suggestTitres("harry", 10));
+	}
+}
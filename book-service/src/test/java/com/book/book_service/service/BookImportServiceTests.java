@@ -0,0 +1,133 @@
+package com.book.book_service.service;
+
+import com.book.book_service.PostgresTestConfig;
+import com.book.book_service.dto.BookDto;
+import com.book.book_service.dto.ImportProgressDto;
+import com.book.book_service.dto.ImportReportDto;
+import com.book.book_service.event.BookChangedEvent;
+import com.book.book_service.model.Book;
+import com.book.book_service.repository.BookRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doReturn;
+
+@SpringBootTest(properties = "eureka.client.enabled=false")
+@Import(PostgresTestConfig.class)
+@Testcontainers(disabledWithoutDocker = true)
+@RecordApplicationEvents
+class BookImportServiceTests {
+
+	@Autowired
+	private BookImportService importService;
+
+	@Autowired
+	private BookService bookService;
+
+	@MockitoSpyBean
+	private BookRepository bookRepository;
+
+	@Autowired
+	private ApplicationEvents events;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Test
+	void duplicatesThatSlipPastThePreCheckAreRejectedWithoutEvents() throws Exception {
+		String suffix = String.valueOf(System.nanoTime());
+		BookDto existing = new BookDto();
+		existing.setTitre("Les Misérables");
+		existing.setAuteur("Victor Hugo");
+		existing.setIsbn("dup-" + suffix);
+		bookService.createBook(existing);
+		events.clear();
+
+		// Simule un ISBN inséré par une autre requête entre le contrôle du lot et l'INSERT : seul ON CONFLICT l'écarte
+		doReturn(List.of()).when(bookRepository).findExistingIsbns(anyCollection());
+
+		String ndjson = "{\"titre\":\"Les Misérables\",\"auteur\":\"Victor Hugo\",\"isbn\":\"dup-" + suffix + "\"}\n"
+				+ "{\"titre\":\"Notre-Dame de Paris\",\"auteur\":\"Victor Hugo\",\"isbn\":\"new-" + suffix + "\"}\n";
+		ImportReportDto report = importService.importNdjson(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+		assertEquals(2, report.getTotalRows());
+		assertEquals(1, report.getImported());
+		assertEquals(1, report.getRejected());
+		assertEquals("dup-" + suffix, report.getRejectedRows().get(0).getIsbn());
+
+		List<BookChangedEvent> created = events.stream(BookChangedEvent.class).toList();
+		assertEquals(1, created.size());
+		assertEquals("new-" + suffix, created.get(0).getAfter().getIsbn());
+	}
+
+	@Test
+	void ndjsonRowsWithoutDisponibleAreAvailableLikeCsvRows() throws Exception {
+		String suffix = String.valueOf(System.nanoTime());
+		String ndjson = "{\"titre\":\"Candide\",\"auteur\":\"Voltaire\",\"isbn\":\"a-" + suffix + "\"}\n"
+				+ "{\"titre\":\"Zadig\",\"auteur\":\"Voltaire\",\"isbn\":\"b-" + suffix + "\",\"disponible\":false}\n";
+		importService.importNdjson(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)));
+
+		List<Book> books = bookRepository.findByIsbnIn(List.of("a-" + suffix, "b-" + suffix));
+		assertEquals(2, books.size());
+		for (Book book : books) {
+			if (book.getIsbn().startsWith("a-")) {
+				assertTrue(book.isDisponible());
+			} else {
+				assertFalse(book.isDisponible());
+			}
+		}
+	}
+
+	@Test
+	void trackedImportWritesOneProgressLinePerBatchThenTheReport() throws Exception {
+		String suffix = String.valueOf(System.nanoTime());
+		StringBuilder csv = new StringBuilder("titre;auteur;isbn\n");
+		for (int i = 0; i <= BookImportService.BATCH_SIZE; i++) {
+			csv.append("Titre ").append(i).append(";Auteur;p-").append(suffix).append('-').append(i).append('\n');
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		importService.importCsv(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)), out);
+
+		List<ImportProgressDto> lines = out.toString(StandardCharsets.UTF_8).lines()
+				.map(line -> {
+					try {
+						return objectMapper.readValue(line, ImportProgressDto.class);
+					} catch (Exception e) {
+						throw new IllegalStateException(e);
+					}
+				})
+				.toList();
+		assertEquals(3, lines.size());
+		assertEquals(1, lines.get(0).getBatches());
+		assertEquals(BookImportService.BATCH_SIZE, lines.get(0).getImported());
+		assertFalse(lines.get(0).isDone());
+		ImportProgressDto last = lines.get(2);
+		assertTrue(last.isDone());
+		assertEquals(BookImportService.BATCH_SIZE + 1, last.getReport().getImported());
+	}
+
+	@Test
+	void trackedImportReportsAnInvalidHeaderAsTheLastLine() throws Exception {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		importService.importCsv(new ByteArrayInputStream("titre;auteur\n".getBytes(StandardCharsets.UTF_8)), out);
+
+		ImportProgressDto last = objectMapper.readValue(out.toString(StandardCharsets.UTF_8).trim(), ImportProgressDto.class);
+		assertTrue(last.isDone());
+		assertTrue(last.getError().contains("isbn"));
+	}
+}
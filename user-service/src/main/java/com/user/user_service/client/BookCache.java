@@ -0,0 +1,132 @@
+package com.user.user_service.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.user.user_service.dto.BookBatchDto;
+import com.user.user_service.dto.BookDto;
+import feign.FeignException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+
+// Cache en lecture devant BookServiceClient : taille bornée, expiration, et mémorisation des 404.
+// Les chargements simultanés d'un même livre ne déclenchent qu'un seul appel distant.
+@Component
+public class BookCache {
+
+    // Nombre maximal d'IDs envoyés par appel à /api/books/batch
+    static final int BATCH_SIZE = 200;
+
+    @Autowired
+    private BookServiceClient bookServiceClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private StaleBookStore staleBooks;
+
+    @Value("${book-cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${book-cache.ttl:10m}")
+    private Duration ttl;
+
+    // Durée de mémorisation d'un livre introuvable (404)
+    @Value("${book-cache.negative-ttl:30s}")
+    private Duration negativeTtl;
+
+    // Durée de mémorisation d'une copie locale servie par le fallback : le service est réinterrogé rapidement
+    @Value("${book-cache.degraded-ttl:5s}")
+    private Duration degradedTtl;
+
+    // Optional.empty() = livre inexistant côté service des livres
+    private Cache<Long, Optional<BookDto>> cache;
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<Long, Optional<BookDto>>() {
+                    @Override
+                    public long expireAfterCreate(Long id, Optional<BookDto> book, long currentTime) {
+                        if (book.isEmpty()) {
+                            return negativeTtl.toNanos();
+                        }
+                        return (book.get().isDegraded() ? degradedTtl : ttl).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Long id, Optional<BookDto> book, long currentTime, long currentDuration) {
+                        return expireAfterCreate(id, book, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Long id, Optional<BookDto> book, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        // Expose cache.gets (hit/miss), cache.evictions et cache.size avec le tag cache=books
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "books");
+    }
+
+    public BookDto getBook(Long id) {
+        return cache.get(id, this::load)
+                .orElseThrow(() -> new NoSuchElementException("Livre non trouvé avec l'id: " + id));
+    }
+
+    // Livres trouvés par ID ; les absents du cache sont chargés en un seul appel groupé
+    public Map<Long, BookDto> getBooks(Collection<Long> ids) {
+        Map<Long, BookDto> books = new HashMap<>();
+        cache.getAll(ids, this::loadAll).forEach((id, book) -> book.ifPresent(dto -> books.put(id, dto)));
+        return books;
+    }
+
+    public void invalidate(Long id) {
+        cache.invalidate(id);
+    }
+
+    private Optional<BookDto> load(Long id) {
+        try {
+            BookDto book = bookServiceClient.getBookById(id);
+            staleBooks.put(book);
+            return Optional.of(book);
+        } catch (FeignException.NotFound e) {
+            return Optional.empty();
+        }
+    }
+
+    // Un appel au client par lot de BATCH_SIZE IDs : chaque lot passe par son propre appel au disjoncteur et au
+    // limiteur de temps, un lot lent ou en échec n'emporte pas les autres (servis par le fallback le cas échéant)
+    private Map<Long, Optional<BookDto>> loadAll(Set<? extends Long> ids) {
+        List<Long> distinctIds = new ArrayList<>(ids);
+        Map<Long, Optional<BookDto>> loaded = new HashMap<>();
+        for (int from = 0; from < distinctIds.size(); from += BATCH_SIZE) {
+            BookBatchDto batch = bookServiceClient.getBooksBatch(
+                    distinctIds.subList(from, Math.min(from + BATCH_SIZE, distinctIds.size())));
+            for (BookDto book : batch.getBooks()) {
+                staleBooks.put(book);
+                loaded.put(book.getId(), Optional.of(book));
+            }
+            for (Long id : batch.getMissingIds()) {
+                loaded.put(id, Optional.empty());
+            }
+        }
+        return loaded;
+    }
+}
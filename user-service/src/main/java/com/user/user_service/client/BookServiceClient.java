@@ -1,18 +1,52 @@
 package com.user.user_service.client;
 
+import com.user.user_service.dto.BookBatchDto;
 import com.user.user_service.dto.BookDto;
+import com.user.user_service.dto.BookReleaseDto;
+import com.user.user_service.dto.AvailabilityBatchDto;
 import com.user.user_service.dto.AvailabilityRequest;
+import com.user.user_service.dto.ChangeFeedDto;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import java.util.List;
 
-@FeignClient(name = "BOOK-SERVICE")
+@FeignClient(name = "BOOK-SERVICE", fallbackFactory = BookServiceClientFallbackFactory.class)
 public interface BookServiceClient {
     @GetMapping("/api/books/{id}")
     BookDto getBookById(@PathVariable("id") Long id);
     
+    @PostMapping("/api/books/batch")
+    BookBatchDto getBooksBatch(@RequestBody List<Long> ids);
+    
     @PutMapping("/api/books/{id}/availability")
     BookDto updateBookAvailability(@PathVariable("id") Long id, @RequestBody AvailabilityRequest request);
-}
\ No newline at end of file
+    
+    // Réservation atomique avec le jeton de l'emprunt : 409 si le livre n'est plus disponible
+    @PostMapping("/api/books/{id}/reserve")
+    BookDto reserveBook(@PathVariable("id") Long id, @RequestParam("reservation") String reservation);
+    
+    // Libération atomique : 409 si le livre est déjà disponible ou réservé avec un autre jeton
+    @PostMapping("/api/books/{id}/release")
+    BookDto releaseBook(@PathVariable("id") Long id, @RequestParam("reservation") String reservation);
+
+    // Réservation groupée sous un même jeton : chaque livre est réservé, ou signalé déjà emprunté ou inexistant
+    @PostMapping("/api/books/batch/reserve")
+    AvailabilityBatchDto reserveBooks(@RequestBody List<Long> ids, @RequestParam("reservation") String reservation);
+    
+    // Libération groupée, chaque livre avec le jeton de sa réservation : une libération rejouée
+    // après la réservation du livre par un autre emprunt est signalée en conflit, sans effet
+    @PostMapping("/api/books/batch/release")
+    AvailabilityBatchDto releaseBooks(@RequestBody List<BookReleaseDto> releases);
+    
+    // Journal des modifications postérieures à "since" ; attend jusqu'à "wait" ms s'il n'y en a pas
+    @GetMapping("/api/books/changes")
+    ChangeFeedDto getBookChanges(@RequestParam("since") long since,
+                                 @RequestParam("limit") int limit,
+                                 @RequestParam("wait") long wait);
+
+}
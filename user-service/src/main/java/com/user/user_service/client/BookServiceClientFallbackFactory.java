@@ -0,0 +1,121 @@
+package com.user.user_service.client;
+
+import com.user.user_service.dto.AvailabilityBatchDto;
+import com.user.user_service.dto.AvailabilityRequest;
+import com.user.user_service.dto.BookBatchDto;
+import com.user.user_service.dto.BookDto;
+import com.user.user_service.dto.BookReleaseDto;
+import com.user.user_service.dto.ChangeFeedDto;
+import feign.FeignException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cloud.openfeign.FallbackFactory;
+import org.springframework.stereotype.Component;
+import java.util.List;
+
+// Réponse de repli de BookServiceClient quand un appel échoue ou est refusé par le disjoncteur,
+// le bulkhead ou le limiteur de temps. Les lectures sont servies depuis StaleBookStore (marquées "degraded") ;
+// les écritures ne peuvent pas être rejouées localement et lèvent BookServiceUnavailableException.
+// Les réservations échappent au limiteur de temps (voir application.yml) : ce repli ne les voit échouer
+// que sur une vraie erreur, un refus du disjoncteur ou du bulkhead, jamais pendant qu'elles sont en cours.
+@Component
+public class BookServiceClientFallbackFactory implements FallbackFactory<BookServiceClient> {
+
+    private static final Logger log = LoggerFactory.getLogger(BookServiceClientFallbackFactory.class);
+
+    @Autowired
+    private StaleBookStore staleBooks;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Override
+    public BookServiceClient create(Throwable cause) {
+        return new Fallback(cause);
+    }
+
+    private class Fallback implements BookServiceClient {
+
+        private final Throwable cause;
+
+        Fallback(Throwable cause) {
+            this.cause = cause;
+        }
+
+        @Override
+        public BookDto getBookById(Long id) {
+            rethrowClientError();
+            return staleBooks.get(id)
+                    .map(book -> served("getBookById", book))
+                    .orElseThrow(() -> unavailable("getBookById"));
+        }
+
+        @Override
+        public BookBatchDto getBooksBatch(List<Long> ids) {
+            rethrowClientError();
+            // Les livres absents de la copie locale ne sont ni trouvés ni signalés inexistants
+            BookBatchDto batch = new BookBatchDto();
+            for (Long id : ids) {
+                staleBooks.get(id).ifPresent(batch.getBooks()::add);
+            }
+            batch.setDegraded(true);
+            return served("getBooksBatch", batch);
+        }
+
+        @Override
+        public BookDto updateBookAvailability(Long id, AvailabilityRequest request) {
+            rethrowClientError();
+            throw unavailable("updateBookAvailability");
+        }
+
+        @Override
+        public BookDto reserveBook(Long id, String reservation) {
+            rethrowClientError();
+            throw unavailable("reserveBook");
+        }
+
+        @Override
+        public BookDto releaseBook(Long id, String reservation) {
+            rethrowClientError();
+            throw unavailable("releaseBook");
+        }
+
+        @Override
+        public AvailabilityBatchDto reserveBooks(List<Long> ids, String reservation) {
+            rethrowClientError();
+            throw unavailable("reserveBooks");
+        }
+
+        @Override
+        public AvailabilityBatchDto releaseBooks(List<BookReleaseDto> releases) {
+            rethrowClientError();
+            throw unavailable("releaseBooks");
+        }
+
+        @Override
+        public ChangeFeedDto getBookChanges(long since, int limit, long wait) {
+            rethrowClientError();
+            throw unavailable("getBookChanges");
+        }
+
+        // Une réponse 4xx (livre inexistant, déjà emprunté...) est une réponse normale : elle est transmise telle quelle
+        private void rethrowClientError() {
+            if (cause instanceof FeignException e && e.status() >= 400 && e.status() < 500) {
+                throw e;
+            }
+        }
+
+        private <T> T served(String endpoint, T response) {
+            meterRegistry.counter("books.client.fallback", "endpoint", endpoint, "result", "stale").increment();
+            log.warn("Service des livres indisponible ({}) : {} servi depuis la copie locale", cause.toString(), endpoint);
+            return response;
+        }
+
+        private BookServiceUnavailableException unavailable(String endpoint) {
+            meterRegistry.counter("books.client.fallback", "endpoint", endpoint, "result", "unavailable").increment();
+            return new BookServiceUnavailableException("Service des livres indisponible, réessayez plus tard", cause);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.user.user_service.client;
+
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+// Métriques des protections du client Feign (un disjoncteur, un bulkhead et un limiteur de temps par méthode) :
+// - books.client.circuit.transitions{endpoint, from, to} : changements d'état des disjoncteurs
+// - books.client.rejected{endpoint, reason} : appels refusés (circuit_open, bulkhead_full, timeout)
+// Les instances sont créées au premier appel de chaque méthode : on s'abonne aux ajouts dans les registres.
+@Component
+public class BookServiceClientMetrics {
+
+    private static final Logger log = LoggerFactory.getLogger(BookServiceClientMetrics.class);
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObjectProvider<CircuitBreakerRegistry> circuitBreakers;
+
+    @Autowired
+    private ObjectProvider<BulkheadRegistry> bulkheads;
+
+    @Autowired
+    private ObjectProvider<TimeLimiterRegistry> timeLimiters;
+
+    @PostConstruct
+    void init() {
+        circuitBreakers.ifAvailable(registry -> {
+            registry.getAllCircuitBreakers().forEach(this::bind);
+            registry.getEventPublisher().onEntryAdded(event -> bind(event.getAddedEntry()));
+        });
+        bulkheads.ifAvailable(registry -> {
+            registry.getAllBulkheads().forEach(this::bind);
+            registry.getEventPublisher().onEntryAdded(event -> bind(event.getAddedEntry()));
+        });
+        timeLimiters.ifAvailable(registry -> {
+            registry.getAllTimeLimiters().forEach(this::bind);
+            registry.getEventPublisher().onEntryAdded(event -> bind(event.getAddedEntry()));
+        });
+    }
+
+    private void bind(CircuitBreaker circuitBreaker) {
+        String endpoint = circuitBreaker.getName();
+        circuitBreaker.getEventPublisher()
+                .onStateTransition(event -> {
+                    log.warn("Disjoncteur {} : {}", endpoint, event.getStateTransition());
+                    meterRegistry.counter("books.client.circuit.transitions", "endpoint", endpoint,
+                            "from", event.getStateTransition().getFromState().name(),
+                            "to", event.getStateTransition().getToState().name()).increment();
+                })
+                .onCallNotPermitted(event -> rejected(endpoint, "circuit_open"));
+    }
+
+    private void bind(Bulkhead bulkhead) {
+        bulkhead.getEventPublisher().onCallRejected(event -> rejected(bulkhead.getName(), "bulkhead_full"));
+    }
+
+    private void bind(TimeLimiter timeLimiter) {
+        timeLimiter.getEventPublisher().onTimeout(event -> rejected(timeLimiter.getName(), "timeout"));
+    }
+
+    private void rejected(String endpoint, String reason) {
+        meterRegistry.counter("books.client.rejected", "endpoint", endpoint, "reason", reason).increment();
+    }
+}
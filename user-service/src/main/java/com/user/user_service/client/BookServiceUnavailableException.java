@@ -0,0 +1,10 @@
+package com.user.user_service.client;
+
+// Le service des livres ne répond pas (panne, disjoncteur ouvert, trop d'appels en cours ou délai dépassé)
+// et aucune copie locale ne peut remplacer sa réponse
+public class BookServiceUnavailableException extends RuntimeException {
+
+    public BookServiceUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,128 @@
+package com.user.user_service.client;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// Lance en parallèle les appels distants indépendants d'une requête (service des livres, MongoDB),
+// sur des threads virtuels quand la JVM en dispose (Java 21+), sinon sur un pool borné.
+// Le nombre d'appels simultanés est limité et tous les appels d'une requête partagent une même échéance.
+@Component
+public class RemoteCallExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(RemoteCallExecutor.class);
+
+    // false : chaque appel est exécuté sur le thread de la requête, l'un après l'autre
+    @Value("${remote-calls.parallel:true}")
+    private boolean parallel;
+
+    @Value("${remote-calls.max-concurrency:256}")
+    private int maxConcurrency;
+
+    // Temps accordé à l'ensemble des appels distants d'une requête
+    @Value("${remote-calls.deadline:3s}")
+    private Duration deadline;
+
+    private AsyncTaskExecutor executor;
+    private Semaphore permits;
+
+    @PostConstruct
+    void init() {
+        permits = new Semaphore(maxConcurrency);
+        try {
+            executor = new VirtualThreadTaskExecutor("remote-call-");
+        } catch (UnsupportedOperationException e) {
+            // JVM sans threads virtuels : pool de threads plateforme de la taille de la limite
+            ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+            pool.setCorePoolSize(maxConcurrency);
+            pool.setMaxPoolSize(maxConcurrency);
+            pool.setThreadNamePrefix("remote-call-");
+            pool.setDaemon(true);
+            pool.initialize();
+            executor = pool;
+        }
+        log.info("Appels distants {} (max {} simultanés, échéance {})",
+                parallel ? "en parallèle sur " + executor.getClass().getSimpleName() : "séquentiels",
+                maxConcurrency, deadline);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            pool.shutdown();
+        }
+    }
+
+    // Échéance commune aux appels lancés pour une même requête
+    public Instant deadline() {
+        return Instant.now().plus(deadline);
+    }
+
+    public <T> CompletableFuture<T> submit(Supplier<T> call, Instant deadline) {
+        if (!parallel) {
+            CompletableFuture<T> result = new CompletableFuture<>();
+            try {
+                result.complete(call.get());
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+            return result;
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            boolean acquired;
+            try {
+                acquired = permits.tryAcquire(remaining(deadline), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RemoteCallTimeoutException("Appel distant interrompu");
+            }
+            if (!acquired) {
+                throw new RemoteCallTimeoutException("Trop d'appels distants en cours");
+            }
+            try {
+                return call.get();
+            } finally {
+                permits.release();
+            }
+        }, executor);
+    }
+
+    // Résultat de l'appel, ou son exception d'origine. Un appel qui dépasse l'échéance n'est pas
+    // interrompu : sa réponse est ignorée, mais reste accessible via le CompletableFuture.
+    public <T> T await(CompletableFuture<T> call, Instant deadline) {
+        try {
+            return call.get(remaining(deadline), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new RemoteCallTimeoutException("Échéance dépassée pour les appels distants");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RemoteCallTimeoutException("Appel distant interrompu");
+        }
+    }
+
+    private static long remaining(Instant deadline) {
+        return Math.max(0, Duration.between(Instant.now(), deadline).toNanos());
+    }
+}
@@ -0,0 +1,9 @@
+package com.user.user_service.client;
+
+// Les appels distants d'une requête n'ont pas abouti avant son échéance
+public class RemoteCallTimeoutException extends RuntimeException {
+
+    public RemoteCallTimeoutException(String message) {
+        super(message);
+    }
+}
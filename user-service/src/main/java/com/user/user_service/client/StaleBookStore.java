@@ -0,0 +1,46 @@
+package com.user.user_service.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.user.user_service.dto.BookDto;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import java.util.Optional;
+
+// Dernière version connue de chaque livre, sans expiration : servie par le fallback du client
+// quand le service des livres ne répond pas. Contrairement à BookCache, elle n'est jamais invalidée.
+@Component
+public class StaleBookStore {
+
+    @Value("${book-cache.stale-maximum-size:50000}")
+    private long maximumSize;
+
+    private Cache<Long, BookDto> books;
+
+    @PostConstruct
+    void init() {
+        books = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    public void put(BookDto book) {
+        if (book != null && book.getId() != null && !book.isDegraded()) {
+            books.put(book.getId(), book);
+        }
+    }
+
+    // Copie marquée comme dégradée, pour que l'appelant sache qu'elle peut être périmée
+    public Optional<BookDto> get(Long id) {
+        BookDto book = books.getIfPresent(id);
+        if (book == null) {
+            return Optional.empty();
+        }
+        BookDto copy = new BookDto();
+        BeanUtils.copyProperties(book, copy);
+        copy.setDegraded(true);
+        return Optional.of(copy);
+    }
+}
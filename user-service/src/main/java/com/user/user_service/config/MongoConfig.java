@@ -0,0 +1,23 @@
+package com.user.user_service.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import java.time.Duration;
+
+@Configuration
+public class MongoConfig {
+
+    // Branche le journal des requêtes lentes sur le client MongoDB. La latence par méthode de repository
+    // est mesurée par Spring Boot Actuator (métrique spring.data.repository.invocations).
+    @Bean
+    public MongoClientSettingsBuilderCustomizer slowQueryListenerCustomizer(
+            @Value("${mongo.slow-query.threshold:100ms}") Duration threshold,
+            ObjectProvider<MongoTemplate> mongoTemplate) {
+        SlowQueryListener listener = new SlowQueryListener(threshold, mongoTemplate);
+        return settings -> settings.addCommandListener(listener);
+    }
+}
@@ -0,0 +1,70 @@
+package com.user.user_service.config;
+
+import com.user.user_service.model.Loan;
+import com.user.user_service.web.IdempotencyStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Crée les index déclarés sur les documents (@CompoundIndex) puis vérifie qu'ils existent :
+// le service refuse de démarrer plutôt que de servir des requêtes en parcours complet de collection
+@Component
+public class MongoIndexProvisioner {
+
+    private static final Logger log = LoggerFactory.getLogger(MongoIndexProvisioner.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void provisionIndexes() {
+        ensureIndexes(mongoTemplate, Loan.class);
+        // Historique fusionné, filtré sur l'utilisateur et paginé sur l'ID, dans les emprunts archivés
+        mongoTemplate.indexOps(Loan.ARCHIVE_COLLECTION).ensureIndex(new Index()
+                .on("userId", Sort.Direction.ASC)
+                .on("_id", Sort.Direction.ASC)
+                .named("userId_id"));
+        // Clés d'idempotence supprimées par MongoDB une fois leur date d'expiration passée
+        mongoTemplate.indexOps(IdempotencyStore.COLLECTION).ensureIndex(new Index()
+                .on(IdempotencyStore.EXPIRES_AT, Sort.Direction.ASC)
+                .expire(Duration.ZERO)
+                .named("expireLe_ttl"));
+    }
+
+    public static void ensureIndexes(MongoTemplate mongoTemplate, Class<?> entityType) {
+        IndexResolver resolver = IndexResolver.create(mongoTemplate.getConverter().getMappingContext());
+        IndexOperations indexOps = mongoTemplate.indexOps(entityType);
+
+        // ensureIndex ne fait rien si l'index existe déjà avec la même définition
+        List<String> declared = new ArrayList<>();
+        for (IndexDefinition index : resolver.resolveIndexFor(entityType)) {
+            declared.add(indexOps.ensureIndex(index));
+        }
+
+        Set<String> existing = indexOps.getIndexInfo().stream()
+                .map(IndexInfo::getName)
+                .collect(Collectors.toSet());
+        List<String> missing = declared.stream()
+                .filter(name -> !existing.contains(name))
+                .collect(Collectors.toList());
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("Index MongoDB manquants sur " + entityType.getSimpleName() + ": " + missing);
+        }
+        log.info("Index vérifiés sur {} : {}", entityType.getSimpleName(), declared);
+    }
+}
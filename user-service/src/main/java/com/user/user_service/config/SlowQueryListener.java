@@ -0,0 +1,92 @@
+package com.user.user_service.config;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandStartedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+// Journalise les requêtes MongoDB plus lentes que le seuil, avec le plan choisi par le serveur (explain).
+// L'explain est exécuté hors du thread du driver pour ne pas ralentir la requête suivante.
+public class SlowQueryListener implements CommandListener {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowQueryListener.class);
+
+    // Commandes dont MongoDB sait expliquer le plan
+    private static final Set<String> EXPLAINABLE = Set.of(
+            "find", "aggregate", "count", "distinct", "update", "delete", "findAndModify");
+
+    private final Duration threshold;
+    private final ObjectProvider<MongoTemplate> mongoTemplate;
+
+    // Copie des commandes en cours : le document fourni par le driver n'est valide que pendant l'appel
+    private final Map<Integer, BsonDocument> inFlight = new ConcurrentHashMap<>();
+
+    private final ExecutorService explainExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "mongo-slow-query-explain");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SlowQueryListener(Duration threshold, ObjectProvider<MongoTemplate> mongoTemplate) {
+        this.threshold = threshold;
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void commandStarted(CommandStartedEvent event) {
+        if (EXPLAINABLE.contains(event.getCommandName())) {
+            inFlight.put(event.getRequestId(), event.getCommand().clone());
+        }
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        BsonDocument command = inFlight.remove(event.getRequestId());
+        long elapsedMillis = event.getElapsedTime(TimeUnit.MILLISECONDS);
+        if (command != null && elapsedMillis >= threshold.toMillis()) {
+            log.warn("Requête lente ({} ms) sur {}.{} : {}", elapsedMillis, event.getDatabaseName(),
+                    event.getCommandName(), command.toJson());
+            explainExecutor.execute(() -> explain(event.getDatabaseName(), command));
+        }
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        inFlight.remove(event.getRequestId());
+    }
+
+    private void explain(String databaseName, BsonDocument command) {
+        // Retirer les champs ajoutés par le driver ($db, lsid, $clusterTime...) avant de rejouer la commande
+        BsonDocument explained = new BsonDocument();
+        command.forEach((key, value) -> {
+            if (!key.startsWith("$") && !key.equals("lsid") && !key.equals("txnNumber")) {
+                explained.put(key, value);
+            }
+        });
+        try {
+            Document result = mongoTemplate.getObject().getMongoDatabaseFactory().getMongoDatabase(databaseName)
+                    .runCommand(new Document("explain", explained).append("verbosity", "queryPlanner"));
+            Object queryPlanner = result.get("queryPlanner");
+            Object plan = queryPlanner instanceof Document planner && planner.containsKey("winningPlan")
+                    ? planner.get("winningPlan")
+                    : result;
+            log.warn("Plan d'exécution de la requête lente : {}",
+                    plan instanceof Document document ? document.toJson() : plan);
+        } catch (RuntimeException e) {
+            log.warn("Impossible d'obtenir le plan de la requête lente : {}", e.getMessage());
+        }
+    }
+}
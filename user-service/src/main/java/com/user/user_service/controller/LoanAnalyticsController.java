@@ -0,0 +1,98 @@
+package com.user.user_service.controller;
+
+import com.user.user_service.dto.LoanDurationStatsDto;
+import com.user.user_service.dto.LoanPeriodStatsDto;
+import com.user.user_service.dto.TopBookDto;
+import com.user.user_service.dto.UserOverdueRateDto;
+import com.user.user_service.service.LoanAnalyticsService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/loans/analytics")
+@Tag(name = "Statistiques des prêts", description = "Indicateurs calculés par agrégation MongoDB")
+public class LoanAnalyticsController {
+
+    @Autowired
+    private LoanAnalyticsService analyticsService;
+
+    @Operation(summary = "Prêts par jour ou par mois", description = "Emprunts et retours par période, lus dans les compteurs quotidiens")
+    @ApiResponse(responseCode = "200", description = "Compteurs par période, dans l'ordre chronologique")
+    @GetMapping("/per-period")
+    public ResponseEntity<List<LoanPeriodStatsDto>> getLoansPerPeriod(
+            @Parameter(description = "Premier jour (inclus)", example = "2025-01-01")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Dernier jour (inclus)", example = "2025-12-31")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Granularité", example = "MONTH")
+            @RequestParam(defaultValue = "DAY") LoanAnalyticsService.Granularity granularity) {
+        return ResponseEntity.ok(analyticsService.getLoansPerPeriod(from, to, granularity));
+    }
+
+    @Operation(summary = "Livres les plus empruntés", description = "Classement des livres par nombre d'emprunts sur la période, lu dans les compteurs quotidiens")
+    @ApiResponse(responseCode = "200", description = "Livres par nombre d'emprunts décroissant")
+    @GetMapping("/top-books")
+    public ResponseEntity<List<TopBookDto>> getTopBooks(
+            @Parameter(description = "Premier jour (inclus)", example = "2025-01-01")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Dernier jour (inclus)", example = "2025-12-31")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Nombre de livres (max " + LoanAnalyticsService.MAX_LIMIT + ")", example = "10")
+            @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(analyticsService.getTopBooks(from, to, limit));
+    }
+
+    @Operation(summary = "Durée moyenne des prêts", description = "Durée moyenne et part des retours en retard, pour les prêts rendus sur la période")
+    @ApiResponse(responseCode = "200", description = "Durée moyenne en jours et taux de retard")
+    @GetMapping("/duration")
+    public ResponseEntity<LoanDurationStatsDto> getLoanDurations(
+            @Parameter(description = "Premier jour de retour (inclus)", example = "2025-01-01")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Dernier jour de retour (inclus)", example = "2025-12-31")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(analyticsService.getLoanDurations(from, to));
+    }
+
+    @Operation(summary = "Taux de retard par utilisateur", description = "Utilisateurs ayant le plus fort taux de retard, calculé sur tout l'historique des prêts")
+    @ApiResponse(responseCode = "200", description = "Utilisateurs par taux de retard décroissant")
+    @GetMapping("/overdue-rate")
+    public ResponseEntity<List<UserOverdueRateDto>> getOverdueRates(
+            @Parameter(description = "Nombre d'utilisateurs (max " + LoanAnalyticsService.MAX_LIMIT + ")", example = "10")
+            @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Nombre minimal de prêts pour figurer dans le classement", example = "5")
+            @RequestParam(required = false) Integer minLoans) {
+        return ResponseEntity.ok(analyticsService.getOverdueRates(limit, minLoans));
+    }
+
+    @Operation(summary = "Taux de retard d'un utilisateur", description = "Nombre de prêts et de prêts en retard de l'utilisateur")
+    @ApiResponse(responseCode = "200", description = "Taux de retard de l'utilisateur")
+    @GetMapping("/overdue-rate/{userId}")
+    public ResponseEntity<UserOverdueRateDto> getOverdueRate(@PathVariable String userId) {
+        return ResponseEntity.ok(analyticsService.getOverdueRate(userId));
+    }
+
+    @Operation(summary = "Recalculer les compteurs quotidiens", description = "Reconstruit les compteurs quotidiens à partir de l'historique des prêts")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Compteurs recalculés"),
+        @ApiResponse(responseCode = "409", description = "Un recalcul est déjà en cours")
+    })
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<?> rebuildRollups() {
+        try {
+            analyticsService.rebuildRollups();
+            return ResponseEntity.noContent().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        }
+    }
+}
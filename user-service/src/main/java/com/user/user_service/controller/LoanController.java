@@ -1,18 +1,29 @@
 package com.user.user_service.controller;
 
+import com.user.user_service.client.BookServiceUnavailableException;
+import com.user.user_service.client.RemoteCallTimeoutException;
+import com.user.user_service.dto.BatchCheckoutRequest;
+import com.user.user_service.dto.BatchReturnRequest;
 import com.user.user_service.dto.CreateLoanRequest;
 import com.user.user_service.dto.LoanDto;
+import com.user.user_service.dto.LoanBatchResultDto;
+import com.user.user_service.dto.LoanPageDto;
+import com.user.user_service.model.Loan;
 import com.user.user_service.service.LoanService;
+import com.user.user_service.web.IdempotencyStore;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.NoSuchElementException;
 
@@ -24,6 +35,9 @@ public class LoanController {
     @Autowired
     private LoanService loanService;
 
+    @Autowired
+    private IdempotencyStore idempotency;
+
     @Operation(summary = "Récupérer tous les prêts", description = "Retourne tous les prêts enregistrés dans le système")
     @ApiResponse(responseCode = "200", description = "Liste des prêts récupérée avec succès")
     @GetMapping
@@ -31,6 +45,56 @@ public class LoanController {
         return ResponseEntity.ok(loanService.getAllLoans());
     }
 
+    @Operation(summary = "Parcourir les prêts page par page", description = "Pagination par curseur sur l'ID, avec filtres facultatifs. En mode lean, seuls les champs enregistrés du prêt sont renvoyés, sans titre du livre ni nom de l'utilisateur")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Page de prêts", content = @Content(schema = @Schema(implementation = LoanPageDto.class))),
+        @ApiResponse(responseCode = "400", description = "Curseur ou filtre invalide")
+    })
+    @GetMapping("/page")
+    public ResponseEntity<LoanPageDto> getLoansPage(
+            @Parameter(description = "Curseur renvoyé par la page précédente (absent pour la première page)")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Nombre de prêts par page (max " + LoanService.MAX_PAGE_SIZE + ")", example = "50")
+            @RequestParam(required = false) Integer size,
+            @Parameter(description = "Statut des prêts", example = "EMPRUNTE")
+            @RequestParam(required = false) Loan.LoanStatus statut,
+            @Parameter(description = "ID de l'utilisateur")
+            @RequestParam(required = false) String userId,
+            @Parameter(description = "Date d'emprunt minimale (incluse)", example = "2025-01-01")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @Parameter(description = "Date d'emprunt maximale (incluse)", example = "2025-12-31")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @Parameter(description = "Ne renvoyer que les champs enregistrés, sans enrichissement", example = "true")
+            @RequestParam(defaultValue = "false") boolean lean) {
+        try {
+            return ResponseEntity.ok(loanService.getLoansPage(cursor, size, statut, userId, from, to, lean));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @Operation(summary = "Historique complet des prêts", description = "Prêts actifs et archivés, fusionnés et paginés par curseur dans l'ordre de création")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Page de l'historique", content = @Content(schema = @Schema(implementation = LoanPageDto.class))),
+        @ApiResponse(responseCode = "400", description = "Curseur invalide")
+    })
+    @GetMapping("/history")
+    public ResponseEntity<LoanPageDto> getLoanHistory(
+            @Parameter(description = "ID de l'utilisateur")
+            @RequestParam(required = false) String userId,
+            @Parameter(description = "Curseur renvoyé par la page précédente (absent pour la première page)")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Nombre de prêts par page (max " + LoanService.MAX_PAGE_SIZE + ")", example = "50")
+            @RequestParam(required = false) Integer size,
+            @Parameter(description = "Ne renvoyer que les champs enregistrés, sans enrichissement", example = "true")
+            @RequestParam(defaultValue = "false") boolean lean) {
+        try {
+            return ResponseEntity.ok(loanService.getLoanHistory(userId, cursor, size, lean));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @Operation(summary = "Récupérer un prêt par ID", description = "Retourne un prêt spécifique en fonction de son ID")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Prêt trouvé", content = @Content(schema = @Schema(implementation = LoanDto.class))),
@@ -48,19 +112,41 @@ public class LoanController {
     @Operation(summary = "Créer un nouveau prêt", description = "Crée un nouveau prêt de livre pour un utilisateur")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "201", description = "Prêt créé avec succès", content = @Content(schema = @Schema(implementation = LoanDto.class))),
+        @ApiResponse(responseCode = "400", description = "Date de retour prévue manquante, ou clé d'idempotence déjà utilisée pour une autre requête"),
         @ApiResponse(responseCode = "404", description = "Utilisateur ou livre non trouvé"),
-        @ApiResponse(responseCode = "409", description = "Livre déjà emprunté ou utilisateur avec trop d'emprunts"),
-        @ApiResponse(responseCode = "500", description = "Erreur serveur")
+        @ApiResponse(responseCode = "409", description = "Livre déjà emprunté, utilisateur avec trop d'emprunts, ou requête avec la même clé encore en cours"),
+        @ApiResponse(responseCode = "500", description = "Erreur serveur"),
+        @ApiResponse(responseCode = "503", description = "Service des livres indisponible"),
+        @ApiResponse(responseCode = "504", description = "Service des livres trop lent")
     })
     @PostMapping
-    public ResponseEntity<?> createLoan(@RequestBody CreateLoanRequest request) {
+    public ResponseEntity<?> createLoan(
+            @Parameter(description = "Clé choisie par le client : une nouvelle tentative avec la même clé renvoie la réponse de la première")
+            @RequestHeader(value = IdempotencyStore.HEADER, required = false) String idempotencyKey,
+            @RequestBody CreateLoanRequest request) {
+        try {
+            return idempotency.execute("POST /api/loans", idempotencyKey, request, () -> createLoanResponse(request));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    private ResponseEntity<Object> createLoanResponse(CreateLoanRequest request) {
         try {
             LoanDto loanDto = loanService.createLoan(request);
             return new ResponseEntity<>(loanDto, HttpStatus.CREATED);
+        } catch (BookServiceUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        } catch (RemoteCallTimeoutException e) {
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(e.getMessage());
         } catch (NoSuchElementException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
         } catch (IllegalStateException e) {
             return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
         }
@@ -86,4 +172,50 @@ public class LoanController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    @Operation(summary = "Emprunter plusieurs livres", description = "Réserve tous les livres en un appel au service des livres et crée les prêts en une écriture ; chaque livre a son propre statut (201, 404 ou 409)")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Résultat par livre", content = @Content(schema = @Schema(implementation = LoanBatchResultDto.class))),
+        @ApiResponse(responseCode = "400", description = "Requête invalide ou trop de livres"),
+        @ApiResponse(responseCode = "404", description = "Utilisateur non trouvé"),
+        @ApiResponse(responseCode = "409", description = "L'utilisateur dépasserait le nombre maximal d'emprunts"),
+        @ApiResponse(responseCode = "500", description = "Erreur serveur"),
+        @ApiResponse(responseCode = "503", description = "Service des livres indisponible"),
+        @ApiResponse(responseCode = "504", description = "Service des livres trop lent")
+    })
+    @PostMapping("/batch")
+    public ResponseEntity<?> checkoutBatch(@RequestBody BatchCheckoutRequest request) {
+        try {
+            return ResponseEntity.ok(loanService.checkoutBatch(request));
+        } catch (BookServiceUnavailableException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        } catch (RemoteCallTimeoutException e) {
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(e.getMessage());
+        } catch (NoSuchElementException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(e.getMessage());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+        }
+    }
+
+    @Operation(summary = "Retourner plusieurs livres", description = "Marque les prêts comme retournés en une écriture et libère les livres en un appel ; chaque prêt a son propre statut (200, 404 ou 409)")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Résultat par prêt", content = @Content(schema = @Schema(implementation = LoanBatchResultDto.class))),
+        @ApiResponse(responseCode = "400", description = "Requête invalide ou trop de prêts"),
+        @ApiResponse(responseCode = "500", description = "Erreur serveur")
+    })
+    @PutMapping("/batch/return")
+    public ResponseEntity<?> returnBatch(@RequestBody BatchReturnRequest request) {
+        try {
+            return ResponseEntity.ok(loanService.returnBatch(request));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(e.getMessage());
+        }
+    }
+}
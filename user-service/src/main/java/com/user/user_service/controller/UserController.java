@@ -2,9 +2,11 @@ package com.user.user_service.controller;
 
 import com.user.user_service.dto.LoanDto;
 import com.user.user_service.dto.UserDto;
+import com.user.user_service.dto.UserPageDto;
 import com.user.user_service.service.LoanService;
 import com.user.user_service.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -35,6 +37,24 @@ public class UserController {
         return ResponseEntity.ok(userService.getAllUsers());
     }
 
+    @Operation(summary = "Parcourir les utilisateurs page par page", description = "Pagination par curseur sur l'ID : renvoyer le nextCursor reçu pour obtenir la page suivante")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Page d'utilisateurs", content = @Content(schema = @Schema(implementation = UserPageDto.class))),
+            @ApiResponse(responseCode = "400", description = "Curseur invalide")
+    })
+    @GetMapping("/page")
+    public ResponseEntity<UserPageDto> getUsersPage(
+            @Parameter(description = "Curseur renvoyé par la page précédente (absent pour la première page)")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Nombre d'utilisateurs par page (max " + UserService.MAX_PAGE_SIZE + ")", example = "50")
+            @RequestParam(required = false) Integer size) {
+        try {
+            return ResponseEntity.ok(userService.getUsersPage(cursor, size));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @Operation(summary = "Récupérer un utilisateur par ID", description = "Retourne un utilisateur spécifique en fonction de son ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Utilisateur trouvé", content = @Content(schema = @Schema(implementation = UserDto.class))),
@@ -0,0 +1,18 @@
+package com.user.user_service.dto;
+
+import lombok.Data;
+import java.util.ArrayList;
+import java.util.List;
+
+// Réponse des réservations et libérations groupées du service des livres
+@Data
+public class AvailabilityBatchDto {
+    // Livres réservés (ou libérés) par la requête, dans leur nouvel état
+    private List<BookDto> books = new ArrayList<>();
+
+    // Livres déjà dans l'état demandé
+    private List<Long> conflictIds = new ArrayList<>();
+
+    // IDs ne correspondant à aucun livre
+    private List<Long> missingIds = new ArrayList<>();
+}
@@ -0,0 +1,13 @@
+package com.user.user_service.dto;
+
+import lombok.Data;
+import java.time.LocalDate;
+import java.util.List;
+
+@Data
+public class BatchCheckoutRequest {
+    private String userId;
+    private List<Long> bookIds;
+    private LocalDate dateEmprunt = LocalDate.now();
+    private LocalDate dateRetourPrevue;
+}
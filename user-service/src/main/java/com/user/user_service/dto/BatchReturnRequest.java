@@ -0,0 +1,9 @@
+package com.user.user_service.dto;
+
+import lombok.Data;
+import java.util.List;
+
+@Data
+public class BatchReturnRequest {
+    private List<String> loanIds;
+}
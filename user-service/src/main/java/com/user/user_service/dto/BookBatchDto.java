@@ -0,0 +1,22 @@
+package com.user.user_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookBatchDto {
+    // Livres trouvés, dans l'ordre des IDs demandés
+    private List<BookDto> books = new ArrayList<>();
+
+    // IDs demandés qui ne correspondent à aucun livre
+    private List<Long> missingIds = new ArrayList<>();
+
+    // Réponse construite depuis la copie locale : les livres absents n'y figurent pas
+    // sans pour autant être inexistants
+    private boolean degraded;
+}
@@ -0,0 +1,18 @@
+package com.user.user_service.dto;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+// Entrée du journal des modifications du service des livres
+@Data
+public class BookChangeDto {
+    private Long seq;
+    private Long bookId;
+
+    // CREATED, UPDATED, DELETED ou AVAILABILITY
+    private String type;
+    private LocalDateTime changedAt;
+
+    // État actuel du livre (null s'il a été supprimé depuis)
+    private BookDto book;
+}
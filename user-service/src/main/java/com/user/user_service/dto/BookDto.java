@@ -12,4 +12,7 @@ public class BookDto {
     private String isbn;
     private boolean disponible;
     private LocalDateTime dateAjout;
+    
+    // Copie locale servie pendant une indisponibilité du service des livres ; peut être périmée
+    private boolean degraded;
 }
\ No newline at end of file
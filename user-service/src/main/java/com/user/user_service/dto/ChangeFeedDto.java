@@ -0,0 +1,13 @@
+package com.user.user_service.dto;
+
+import lombok.Data;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ChangeFeedDto {
+    private List<BookChangeDto> changes = new ArrayList<>();
+
+    // Numéro de séquence à repasser dans "since" pour la prochaine lecture
+    private long lastSeq;
+}
@@ -0,0 +1,21 @@
+package com.user.user_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Résultat d'un élément d'un emprunt ou d'un retour groupé
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LoanBatchItemDto {
+    private Long bookId;
+    private String loanId;
+
+    // Code HTTP qu'aurait renvoyé l'opération unitaire (201, 200, 404, 409, 500)
+    private int status;
+    private String message;
+
+    // Prêt créé ou retourné (null en cas d'échec)
+    private LoanDto loan;
+}
@@ -0,0 +1,17 @@
+package com.user.user_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LoanBatchResultDto {
+    // Un résultat par élément, dans l'ordre de la requête
+    private List<LoanBatchItemDto> items;
+
+    private int succeeded;
+    private int failed;
+}
@@ -18,4 +18,7 @@ public class LoanDto {
     private String titreLivre;
     private String nomUtilisateur;
     private String prenomUtilisateur;
+    
+    // Informations du livre issues d'une copie locale, ou manquantes, faute de réponse du service des livres
+    private boolean degraded;
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.user.user_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LoanDurationStatsDto {
+    // Retours enregistrés sur la période
+    private long retours;
+    private double dureeMoyenneJours;
+    private long retoursEnRetard;
+    private double tauxRetard;
+}
@@ -0,0 +1,15 @@
+package com.user.user_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LoanPeriodStatsDto {
+    // Jour (2025-03-14) ou mois (2025-03)
+    private String periode;
+    private long emprunts;
+    private long retours;
+}
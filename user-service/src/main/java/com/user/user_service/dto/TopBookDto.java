@@ -0,0 +1,14 @@
+package com.user.user_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TopBookDto {
+    private Long bookId;
+    private String titreLivre;
+    private long emprunts;
+}
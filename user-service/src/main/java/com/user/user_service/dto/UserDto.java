@@ -10,4 +10,6 @@ public class UserDto {
     private String prenom;
     private String email;
     private LocalDateTime dateInscription;
+    // Lecture seule : ignoré à la création et à la mise à jour
+    private int empruntsActifs;
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.user.user_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class UserOverdueRateDto {
+    private String userId;
+    private String nomUtilisateur;
+    private String prenomUtilisateur;
+    private long emprunts;
+
+    // Emprunts rendus en retard, en retard, ou non rendus à une date de retour dépassée
+    private long enRetard;
+    private double tauxRetard;
+}
@@ -0,0 +1,13 @@
+package com.user.user_service.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Publié quand le nom ou le prénom d'un utilisateur change, pour mettre à jour les copies dans ses emprunts
+@Getter
+@AllArgsConstructor
+public class UserRenamedEvent {
+    private final String userId;
+    private final String nom;
+    private final String prenom;
+}
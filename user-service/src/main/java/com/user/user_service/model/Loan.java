@@ -2,12 +2,39 @@ package com.user.user_service.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
+import java.time.Instant;
 import java.time.LocalDate;
 
 @Data
 @Document(collection = "loans")
+// Un index par chemin d'accès de LoanRepository, créés et vérifiés au démarrage par MongoIndexProvisioner
+@CompoundIndexes({
+    // findByStatut, et emprunts en retard (statut = EMPRUNTE et dateRetourPrevue < aujourd'hui)
+    @CompoundIndex(name = "statut_dateRetourPrevue", def = "{'statut': 1, 'dateRetourPrevue': 1}"),
+    // findByUserId, et pagination par curseur filtrée sur l'utilisateur
+    @CompoundIndex(name = "userId_id", def = "{'userId': 1, '_id': 1}"),
+    // findByBookIdAndStatut
+    @CompoundIndex(name = "bookId_statut", def = "{'bookId': 1, 'statut': 1}"),
+    // Emprunts rendus à archiver (statut = RETOURNE et dateRetourEffective < date limite)
+    @CompoundIndex(name = "statut_dateRetourEffective", def = "{'statut': 1, 'dateRetourEffective': 1}"),
+    // Libérations de livres en attente d'envoi, par date de prochaine tentative (seuls les emprunts concernés sont indexés)
+    @CompoundIndex(name = "liberationEnAttente_prochainEssai", def = "{'liberationEnAttente.prochainEssai': 1}", sparse = true)
+})
 public class Loan {
+    // Emprunts rendus depuis longtemps, déplacés par LoanArchiver hors de la collection active
+    public static final String ARCHIVE_COLLECTION = "loans_archive";
+    
+    public static final String PENDING_RELEASE = "liberationEnAttente";
+    
+    public static final String RETURN_BATCH = "retourLot";
+    
+    public static final String RETURNED_AT = "retourneLe";
+    
+    public static final String OVERDUE_COUNTED = "retardCompte";
+    
     @Id
     private String id;
     
@@ -17,9 +44,31 @@ public class Loan {
     private LocalDate dateEmprunt = LocalDate.now();
     private LocalDate dateRetourPrevue;
     private LocalDate dateRetourEffective;
+    // Instant du retour : le compteur de l'utilisateur n'est décrémenté qu'après (voir ActiveLoanReconciler)
+    private Instant retourneLe;
     
     private LoanStatus statut = LoanStatus.EMPRUNTE;
     
+    // Retard déjà compté dans les statistiques de l'utilisateur (passage en EN_RETARD) : un retour tardif
+    // ne le compte pas une seconde fois
+    private Boolean retardCompte;
+    
+    // Copies des informations d'affichage, écrites à la création de l'emprunt et tenues à jour
+    // par LoanSnapshotPropagator : la lecture d'un emprunt ne nécessite aucun autre appel
+    private String titreLivre;
+    private String nomUtilisateur;
+    private String prenomUtilisateur;
+    
+    // Jeton de la réservation du livre, renvoyé avec sa libération : le service des livres n'applique la libération
+    // que si le livre est toujours réservé par cet emprunt (absent pour les emprunts antérieurs au jeton)
+    private String reservationLivre;
+    
+    // Boîte d'envoi : libération du livre pas encore transmise au service des livres (absente sinon)
+    private PendingRelease liberationEnAttente;
+    
+    // Retour groupé qui a clos l'emprunt : permet de relire les prêts réellement retournés par ce lot
+    private String retourLot;
+    
     // Énumération pour les statuts d'emprunt
     public enum LoanStatus {
         EMPRUNTE,      // Livre emprunté, pas encore retourné
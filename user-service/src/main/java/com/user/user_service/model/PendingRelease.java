@@ -0,0 +1,23 @@
+package com.user.user_service.model;
+
+import lombok.Data;
+import java.time.Instant;
+
+// Libération du livre à transmettre au service des livres, enregistrée dans l'emprunt lors de son retour
+// (boîte d'envoi) et retirée par AvailabilityOutboxDispatcher une fois transmise
+@Data
+public class PendingRelease {
+    private Instant creeLe;
+    // Prochaine tentative d'envoi : reculée à chaque échec
+    private Instant prochainEssai;
+    private int tentatives;
+    private String derniereErreur;
+
+    public static PendingRelease now() {
+        PendingRelease pending = new PendingRelease();
+        Instant now = Instant.now();
+        pending.setCreeLe(now);
+        pending.setProchainEssai(now);
+        return pending;
+    }
+}
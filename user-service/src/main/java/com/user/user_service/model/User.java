@@ -3,6 +3,7 @@ package com.user.user_service.model;
 import lombok.Data;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
+import java.time.Instant;
 import java.time.LocalDateTime;
 
 @Data
@@ -14,4 +15,8 @@ public class User {
     private String prenom;
     private String email;
     private LocalDateTime dateInscription = LocalDateTime.now();
+    // Emprunts en cours, tenu à jour par ActiveLoanCounter et recalculé par ActiveLoanReconciler
+    private int empruntsActifs;
+    // Dernière modification de empruntsActifs : un emprunt peut être en cours d'enregistrement juste après
+    private Instant empruntsModifiesLe;
 }
\ No newline at end of file
@@ -0,0 +1,167 @@
+package com.user.user_service.scheduling;
+
+import com.mongodb.client.result.UpdateResult;
+import com.user.user_service.model.Loan;
+import com.user.user_service.model.User;
+import com.user.user_service.service.ActiveLoanCounter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// Recalcule le compteur empruntsActifs des utilisateurs à partir des emprunts en cours et corrige les écarts
+// (mise à jour perdue, emprunt créé ou rendu pendant une panne, utilisateurs antérieurs au compteur)
+@Component
+public class ActiveLoanReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(ActiveLoanReconciler.class);
+
+    static final String LOCK_NAME = "active-loan-reconciler";
+
+    private static final List<String> ACTIVE = List.of(Loan.LoanStatus.EMPRUNTE.name(), Loan.LoanStatus.EN_RETARD.name());
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoJobLock jobLock;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Doit rester supérieure à la durée d'un passage
+    @Value("${loans.active-counter.lock-lease:30m}")
+    private Duration lockLease;
+
+    // Durée minimale de détention du verrou, même après un passage rapide ; doit rester inférieure à l'intervalle cron
+    @Value("${loans.active-counter.lock-at-least-for:10m}")
+    private Duration lockAtLeastFor;
+
+    // Un compteur ou un retour modifié depuis moins longtemps peut appartenir à un emprunt ou un retour en cours :
+    // l'utilisateur est laissé au passage suivant. Doit rester supérieure à la durée d'une requête d'emprunt.
+    @Value("${loans.active-counter.grace-period:5m}")
+    private Duration gracePeriod;
+
+    private Timer reconcileTimer;
+    private Counter repairedCounter;
+    private Counter skippedCounter;
+
+    @PostConstruct
+    void init() {
+        reconcileTimer = Timer.builder("loans.active.reconcile")
+                .description("Durée d'un passage de la vérification des compteurs d'emprunts")
+                .register(meterRegistry);
+        repairedCounter = Counter.builder("loans.active.repaired")
+                .description("Compteurs d'emprunts en cours corrigés")
+                .register(meterRegistry);
+        skippedCounter = Counter.builder("loans.active.reconcile.skipped")
+                .description("Passages ignorés car une autre instance tenait le verrou")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${loans.active-counter.reconcile-cron:0 15 4 * * *}")
+    public void reconcile() {
+        if (!jobLock.tryLock(LOCK_NAME, lockLease)) {
+            skippedCounter.increment();
+            return;
+        }
+        Instant start = Instant.now();
+        try {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            long repaired = repairCounters();
+            sample.stop(reconcileTimer);
+            repairedCounter.increment(repaired);
+            if (repaired > 0) {
+                log.warn("Compteurs d'emprunts en cours corrigés : {}", repaired);
+            }
+        } finally {
+            jobLock.unlock(LOCK_NAME, start.plus(lockAtLeastFor));
+        }
+    }
+
+    // Les utilisateurs créés avant le compteur n'ont pas encore de valeur : elle est calculée au démarrage
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            log.warn("Vérification initiale des compteurs d'emprunts interrompue : {}", e.getMessage());
+        }
+    }
+
+    // Une agrégation groupe les emprunts en cours par utilisateur, puis les compteurs sont comparés en parcourant
+    // les utilisateurs. Chaque écart est recompté pour cet utilisateur et corrigé seulement si ni le compteur ni ses
+    // emprunts n'ont bougé depuis le début du délai de grâce : entre la réservation d'une place et l'insertion du prêt,
+    // ou entre le retour d'un prêt et la libération de sa place, l'écart est normal et n'est pas corrigé.
+    // L'écart restant éventuel est repris au passage suivant.
+    public long repairCounters() {
+        Instant settledBefore = Instant.now().minus(gracePeriod);
+        Map<String, Integer> active = new HashMap<>();
+        List<Document> pipeline = List.of(
+                new Document("$match", new Document("statut", new Document("$in", ACTIVE))),
+                new Document("$group", new Document("_id", "$userId").append("n", new Document("$sum", 1))));
+        for (Document doc : mongoTemplate.getCollection(mongoTemplate.getCollectionName(Loan.class))
+                .aggregate(pipeline).allowDiskUse(true)) {
+            active.put(doc.getString("_id"), ((Number) doc.get("n")).intValue());
+        }
+
+        long repaired = 0;
+        Query users = new Query();
+        users.fields().include(ActiveLoanCounter.FIELD).include(ActiveLoanCounter.TOUCHED);
+        try (Stream<User> stream = mongoTemplate.stream(users, User.class)) {
+            for (User user : (Iterable<User>) stream::iterator) {
+                if (user.getEmpruntsActifs() != active.getOrDefault(user.getId(), 0)
+                        && settled(user, settledBefore) && repair(user, settledBefore)) {
+                    repaired++;
+                }
+            }
+        }
+        return repaired;
+    }
+
+    private static boolean settled(User user, Instant settledBefore) {
+        return user.getEmpruntsModifiesLe() == null || user.getEmpruntsModifiesLe().isBefore(settledBefore);
+    }
+
+    private boolean repair(User user, Instant settledBefore) {
+        long count = mongoTemplate.count(Query.query(Criteria.where("userId").is(user.getId())
+                .and("statut").in(ACTIVE)), Loan.class);
+        // Lu après le comptage : un retour compté comme tel mais dont la place n'est pas encore libérée est vu ici
+        if (mongoTemplate.exists(Query.query(Criteria.where("userId").is(user.getId())
+                .and(Loan.RETURNED_AT).gte(settledBefore)), Loan.class)) {
+            return false;
+        }
+        Criteria unchanged = user.getEmpruntsActifs() == 0
+                ? new Criteria().orOperator(Criteria.where(ActiveLoanCounter.FIELD).is(0),
+                        Criteria.where(ActiveLoanCounter.FIELD).exists(false))
+                : Criteria.where(ActiveLoanCounter.FIELD).is(user.getEmpruntsActifs());
+        // Toute réservation ou libération de place depuis la lecture du compteur le date après le délai de grâce
+        Criteria untouched = new Criteria().orOperator(Criteria.where(ActiveLoanCounter.TOUCHED).lt(settledBefore),
+                Criteria.where(ActiveLoanCounter.TOUCHED).exists(false));
+        UpdateResult result = mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(user.getId()).andOperator(unchanged, untouched)),
+                Update.update(ActiveLoanCounter.FIELD, (int) count), User.class);
+        return result.getModifiedCount() > 0;
+    }
+}
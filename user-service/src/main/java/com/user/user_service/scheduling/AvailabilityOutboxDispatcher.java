@@ -0,0 +1,167 @@
+package com.user.user_service.scheduling;
+
+import com.user.user_service.client.BookCache;
+import com.user.user_service.client.BookServiceClient;
+import com.user.user_service.dto.BookReleaseDto;
+import com.user.user_service.model.Loan;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Envoie au service des livres les libérations enregistrées dans les emprunts rendus (boîte d'envoi),
+// par lots, avec de nouvelles tentatives espacées en cas d'échec : aucune libération n'est perdue
+@Component
+public class AvailabilityOutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(AvailabilityOutboxDispatcher.class);
+
+    static final String LOCK_NAME = "availability-outbox";
+
+    private static final String NEXT_ATTEMPT = Loan.PENDING_RELEASE + ".prochainEssai";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoJobLock jobLock;
+
+    @Autowired
+    private BookServiceClient bookServiceClient;
+
+    @Autowired
+    private BookCache bookCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Limité par le service des livres (100 IDs par libération groupée)
+    @Value("${loans.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${loans.outbox.initial-backoff:1s}")
+    private Duration initialBackoff;
+
+    @Value("${loans.outbox.max-backoff:5m}")
+    private Duration maxBackoff;
+
+    // Doit rester supérieure à la durée d'un passage
+    @Value("${loans.outbox.lock-lease:1m}")
+    private Duration lockLease;
+
+    private Timer dispatchTimer;
+    private Counter deliveredCounter;
+    private Counter failedCounter;
+
+    @PostConstruct
+    void init() {
+        dispatchTimer = Timer.builder("loans.outbox.dispatch")
+                .description("Durée d'un envoi groupé de libérations au service des livres")
+                .register(meterRegistry);
+        deliveredCounter = Counter.builder("loans.outbox.delivered")
+                .description("Libérations de livres transmises au service des livres")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("loans.outbox.failed")
+                .description("Libérations de livres dont l'envoi a échoué et sera retenté")
+                .register(meterRegistry);
+        Gauge.builder("loans.outbox.pending", this, AvailabilityOutboxDispatcher::pending)
+                .description("Libérations de livres en attente d'envoi")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${loans.outbox.poll-interval:1s}")
+    public void dispatch() {
+        // Lecture sur l'index partiel avant de prendre le verrou : rien à faire dans la plupart des passages
+        if (!mongoTemplate.exists(due(Instant.now()), Loan.class) || !jobLock.tryLock(LOCK_NAME, lockLease)) {
+            return;
+        }
+        try {
+            // Un lot complet laisse supposer qu'il en reste d'autres
+            int delivered;
+            do {
+                delivered = dispatchBatch(Instant.now());
+            } while (delivered == batchSize);
+        } finally {
+            jobLock.unlock(LOCK_NAME);
+        }
+    }
+
+    // Envoie un lot de libérations échues en un appel ; renvoie le nombre de libérations transmises
+    public int dispatchBatch(Instant now) {
+        List<Loan> loans = mongoTemplate.find(due(now).with(Sort.by(NEXT_ATTEMPT)).limit(batchSize), Loan.class);
+        if (loans.isEmpty()) {
+            return 0;
+        }
+        List<String> loanIds = loans.stream().map(Loan::getId).collect(Collectors.toList());
+        List<Long> bookIds = loans.stream().map(Loan::getBookId).distinct().collect(Collectors.toList());
+        List<BookReleaseDto> releases = loans.stream()
+                .map(loan -> new BookReleaseDto(loan.getBookId(), loan.getReservationLivre()))
+                .distinct()
+                .collect(Collectors.toList());
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            // Livres libérés, déjà disponibles, réservés depuis par un autre emprunt ou inconnus : il n'y a plus rien
+            // à transmettre dans tous ces cas. Le jeton de chaque emprunt rend sûre une libération rejouée après une
+            // réponse perdue : elle ne libère jamais le livre d'une réservation plus récente.
+            bookServiceClient.releaseBooks(releases);
+        } catch (Exception e) {
+            sample.stop(dispatchTimer);
+            retryLater(loans, now, e);
+            return 0;
+        }
+        sample.stop(dispatchTimer);
+
+        mongoTemplate.updateMulti(Query.query(Criteria.where("_id").in(loanIds)),
+                new Update().unset(Loan.PENDING_RELEASE), Loan.class);
+        bookIds.forEach(bookCache::invalidate);
+        deliveredCounter.increment(loans.size());
+        return loans.size();
+    }
+
+    // Chaque emprunt recule sa prochaine tentative selon son propre nombre d'échecs (délai doublé à chaque fois)
+    private void retryLater(List<Loan> loans, Instant now, Exception e) {
+        log.warn("Envoi de {} libérations au service des livres impossible, nouvel essai plus tard : {}",
+                loans.size(), e.getMessage());
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Loan.class);
+        for (Loan loan : loans) {
+            int attempts = loan.getLiberationEnAttente().getTentatives() + 1;
+            bulk.updateOne(Query.query(Criteria.where("_id").is(loan.getId())), new Update()
+                    .set(Loan.PENDING_RELEASE + ".tentatives", attempts)
+                    .set(NEXT_ATTEMPT, now.plus(backoff(attempts)))
+                    .set(Loan.PENDING_RELEASE + ".derniereErreur", e.getMessage()));
+        }
+        bulk.execute();
+        failedCounter.increment(loans.size());
+    }
+
+    Duration backoff(int attempts) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private double pending() {
+        return mongoTemplate.count(Query.query(Criteria.where(NEXT_ATTEMPT).exists(true)), Loan.class);
+    }
+
+    private static Query due(Instant now) {
+        return Query.query(Criteria.where(NEXT_ATTEMPT).lte(now));
+    }
+}
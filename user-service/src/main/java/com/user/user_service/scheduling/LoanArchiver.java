@@ -0,0 +1,128 @@
+package com.user.user_service.scheduling;
+
+import com.mongodb.client.result.DeleteResult;
+import com.user.user_service.model.Loan;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Déplace les emprunts rendus depuis plus de min-age vers la collection d'archive :
+// la collection active ne garde que les emprunts en cours et récents
+@Component
+public class LoanArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(LoanArchiver.class);
+
+    static final String LOCK_NAME = "loan-archiver";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoJobLock jobLock;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${loans.archive.min-age:90d}")
+    private Duration minAge;
+
+    @Value("${loans.archive.batch-size:1000}")
+    private int batchSize;
+
+    // Doit rester supérieure à la durée d'un passage
+    @Value("${loans.archive.lock-lease:30m}")
+    private Duration lockLease;
+
+    // Durée minimale de détention du verrou, même après un passage rapide ; doit rester inférieure à l'intervalle cron
+    @Value("${loans.archive.lock-at-least-for:10m}")
+    private Duration lockAtLeastFor;
+
+    private Timer archiveTimer;
+    private Counter archivedCounter;
+    private Counter skippedCounter;
+
+    @PostConstruct
+    void init() {
+        archiveTimer = Timer.builder("loans.archive.run")
+                .description("Durée d'un passage de l'archivage des emprunts")
+                .register(meterRegistry);
+        archivedCounter = Counter.builder("loans.archived")
+                .description("Emprunts déplacés vers l'archive")
+                .register(meterRegistry);
+        skippedCounter = Counter.builder("loans.archive.skipped")
+                .description("Passages ignorés car une autre instance tenait le verrou")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${loans.archive.cron:0 30 3 * * *}")
+    public void archive() {
+        if (!jobLock.tryLock(LOCK_NAME, lockLease)) {
+            skippedCounter.increment();
+            return;
+        }
+        Instant start = Instant.now();
+        try {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            long archived = archiveReturnedBefore(LocalDate.now().minusDays(minAge.toDays()));
+            sample.stop(archiveTimer);
+            log.info("Emprunts archivés : {}", archived);
+        } finally {
+            jobLock.unlock(LOCK_NAME, start.plus(lockAtLeastFor));
+        }
+    }
+
+    // Par lots : copie dans l'archive (upsert, rejouable après une interruption) puis suppression
+    // de la collection active. Entre les deux, un emprunt peut être présent dans les deux collections ;
+    // les lectures de l'historique ne le gardent qu'une fois.
+    public long archiveReturnedBefore(LocalDate cutoff) {
+        // Un emprunt dont la libération du livre n'est pas encore transmise reste dans la collection active
+        Query query = Query.query(Criteria.where("statut").is(Loan.LoanStatus.RETOURNE)
+                .and("dateRetourEffective").lt(cutoff)
+                .and(Loan.PENDING_RELEASE).exists(false))
+                .limit(batchSize);
+        long archived = 0;
+        while (true) {
+            List<Loan> batch = mongoTemplate.find(query, Loan.class);
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Loan.class, Loan.ARCHIVE_COLLECTION);
+            for (Loan loan : batch) {
+                bulk.replaceOne(Query.query(Criteria.where("_id").is(loan.getId())), loan,
+                        FindAndReplaceOptions.options().upsert());
+            }
+            bulk.execute();
+
+            List<String> ids = batch.stream().map(Loan::getId).collect(Collectors.toList());
+            DeleteResult deleted = mongoTemplate.remove(Query.query(Criteria.where("_id").in(ids)
+                    .and("statut").is(Loan.LoanStatus.RETOURNE)
+                    .and(Loan.PENDING_RELEASE).exists(false)), Loan.class);
+            archived += deleted.getDeletedCount();
+            archivedCounter.increment(deleted.getDeletedCount());
+
+            if (batch.size() < batchSize || deleted.getDeletedCount() == 0) {
+                break;
+            }
+        }
+        return archived;
+    }
+}
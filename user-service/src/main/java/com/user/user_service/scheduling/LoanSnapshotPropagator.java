@@ -0,0 +1,186 @@
+package com.user.user_service.scheduling;
+
+import com.user.user_service.client.BookCache;
+import com.user.user_service.client.BookServiceClient;
+import com.user.user_service.dto.BookChangeDto;
+import com.user.user_service.dto.BookDto;
+import com.user.user_service.dto.ChangeFeedDto;
+import com.user.user_service.event.UserRenamedEvent;
+import com.user.user_service.model.Loan;
+import com.user.user_service.model.User;
+import com.user.user_service.repository.UserRepository;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Tient à jour les copies (titre du livre, nom et prénom de l'utilisateur) enregistrées dans les emprunts
+@Component
+public class LoanSnapshotPropagator {
+
+    private static final Logger log = LoggerFactory.getLogger(LoanSnapshotPropagator.class);
+
+    static final String FEED_LOCK = "book-change-feed";
+    static final String BACKFILL_LOCK = "loan-snapshot-backfill";
+
+    // Position de lecture du journal des livres, partagée entre les instances
+    static final String CURSORS_COLLECTION = "sync_cursors";
+    static final String BOOK_FEED_CURSOR = "book-changes";
+
+    private static final int FEED_LIMIT = 500;
+    private static final int BACKFILL_BATCH_SIZE = 500;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoJobLock jobLock;
+
+    @Autowired
+    private BookServiceClient bookServiceClient;
+
+    @Autowired
+    private BookCache bookCache;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    // Attente côté service des livres quand il n'y a rien de nouveau ; inférieure au timeout de lecture Feign
+    @Value("${loans.snapshot.book-feed-wait:4s}")
+    private Duration bookFeedWait;
+
+    @Async
+    @EventListener
+    public void onUserRenamed(UserRenamedEvent event) {
+        Query query = Query.query(Criteria.where("userId").is(event.getUserId()));
+        Update update = new Update()
+                .set("nomUtilisateur", event.getNom())
+                .set("prenomUtilisateur", event.getPrenom());
+        long updated = mongoTemplate.updateMulti(query, update, Loan.class).getModifiedCount();
+        log.info("Nom de l'utilisateur {} mis à jour dans {} emprunts", event.getUserId(), updated);
+    }
+
+    // Suit le journal des modifications du service des livres (long-poll) ; une seule instance le lit à la fois
+    @Scheduled(fixedDelayString = "${loans.snapshot.book-feed-delay:1s}")
+    public void followBookChanges() {
+        if (!jobLock.tryLock(FEED_LOCK, bookFeedWait.multipliedBy(4))) {
+            return;
+        }
+        try {
+            long since = readCursor();
+            ChangeFeedDto feed = bookServiceClient.getBookChanges(since, FEED_LIMIT, bookFeedWait.toMillis());
+            for (BookChangeDto change : feed.getChanges()) {
+                bookCache.invalidate(change.getBookId());
+                BookDto book = change.getBook();
+                if ("UPDATED".equals(change.getType()) && book != null && book.getTitre() != null) {
+                    // Ne touche que les emprunts dont la copie diffère : rejouer le journal ne réécrit rien
+                    Query query = Query.query(Criteria.where("bookId").is(book.getId())
+                            .and("titreLivre").ne(book.getTitre()));
+                    mongoTemplate.updateMulti(query, Update.update("titreLivre", book.getTitre()), Loan.class);
+                }
+            }
+            if (feed.getLastSeq() != since) {
+                writeCursor(feed.getLastSeq());
+            }
+        } catch (Exception e) {
+            // Nouvel essai au prochain passage, à partir de la même position
+            log.warn("Lecture du journal des livres impossible : {}", e.getMessage());
+        }
+    }
+
+    // Complète au démarrage les emprunts créés avant l'ajout des copies, par lots
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillSnapshots() {
+        if (!jobLock.tryLock(BACKFILL_LOCK, Duration.ofMinutes(30))) {
+            return;
+        }
+        try {
+            long filled = 0;
+            ObjectId after = null;
+            while (true) {
+                Criteria criteria = new Criteria().orOperator(
+                        Criteria.where("titreLivre").is(null),
+                        Criteria.where("nomUtilisateur").is(null));
+                if (after != null) {
+                    criteria = new Criteria().andOperator(Criteria.where("_id").gt(after), criteria);
+                }
+                Query query = Query.query(criteria)
+                        .with(Sort.by(Sort.Direction.ASC, "_id"))
+                        .limit(BACKFILL_BATCH_SIZE);
+                List<Loan> loans = mongoTemplate.find(query, Loan.class);
+                if (loans.isEmpty()) {
+                    break;
+                }
+                filled += fill(loans);
+                after = new ObjectId(loans.get(loans.size() - 1).getId());
+            }
+            log.info("Copies complétées dans {} emprunts", filled);
+        } catch (Exception e) {
+            log.warn("Complément des copies interrompu : {}", e.getMessage());
+        } finally {
+            jobLock.unlock(BACKFILL_LOCK);
+        }
+    }
+
+    // Un appel groupé au service des livres, une requête utilisateurs et une écriture groupée par lot
+    private int fill(List<Loan> loans) {
+        Set<Long> bookIds = loans.stream().map(Loan::getBookId).filter(Objects::nonNull).collect(Collectors.toSet());
+        Set<String> userIds = loans.stream().map(Loan::getUserId).filter(Objects::nonNull).collect(Collectors.toSet());
+        Map<Long, BookDto> books = bookCache.getBooks(bookIds);
+        Map<String, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Loan.class);
+        int count = 0;
+        for (Loan loan : loans) {
+            BookDto book = books.get(loan.getBookId());
+            User user = users.get(loan.getUserId());
+            Update update = new Update();
+            if (book != null) {
+                update.set("titreLivre", book.getTitre());
+            }
+            if (user != null) {
+                update.set("nomUtilisateur", user.getNom()).set("prenomUtilisateur", user.getPrenom());
+            }
+            if (!update.getUpdateObject().isEmpty()) {
+                bulk.updateOne(Query.query(Criteria.where("_id").is(new ObjectId(loan.getId()))), update);
+                count++;
+            }
+        }
+        if (count > 0) {
+            bulk.execute();
+        }
+        return count;
+    }
+
+    private long readCursor() {
+        Document cursor = mongoTemplate.findById(BOOK_FEED_CURSOR, Document.class, CURSORS_COLLECTION);
+        return cursor == null ? 0L : ((Number) cursor.get("seq")).longValue();
+    }
+
+    private void writeCursor(long seq) {
+        mongoTemplate.upsert(Query.query(Criteria.where("_id").is(BOOK_FEED_CURSOR)),
+                Update.update("seq", seq), CURSORS_COLLECTION);
+    }
+}
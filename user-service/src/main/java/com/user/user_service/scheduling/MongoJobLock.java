@@ -0,0 +1,62 @@
+package com.user.user_service.scheduling;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.UUID;
+
+// Verrou partagé entre les instances de user-service, pour qu'une tâche planifiée ne s'exécute qu'une fois.
+// Un document par tâche dans "scheduler_locks" ; le verrou expire seul si l'instance qui le tient s'arrête.
+@Component
+public class MongoJobLock {
+
+    static final String COLLECTION = "scheduler_locks";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    // Identifiant de cette instance
+    private final String owner = UUID.randomUUID().toString();
+
+    // true si le verrou est obtenu (ou prolongé, s'il est déjà tenu par cette instance) pour la durée "lease",
+    // false s'il est tenu par une autre instance
+    public boolean tryLock(String name, Duration lease) {
+        Instant now = Instant.now();
+        // Ne correspond qu'à un verrou expiré ou déjà à nous ; s'il est tenu ailleurs, l'upsert tente
+        // d'insérer un second document avec le même _id et échoue sur l'unicité de _id
+        Query query = Query.query(Criteria.where("_id").is(name).orOperator(
+                Criteria.where("lockedUntil").lte(Date.from(now)),
+                Criteria.where("lockedBy").is(owner)));
+        Update update = new Update()
+                .set("lockedUntil", Date.from(now.plus(lease)))
+                .set("lockedAt", Date.from(now))
+                .set("lockedBy", owner);
+        try {
+            mongoTemplate.upsert(query, update, COLLECTION);
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+
+    public void unlock(String name) {
+        unlock(name, Instant.now());
+    }
+
+    // Libère le verrou, mais pas avant "holdUntil" : une tâche planifiée qui se termine vite reste verrouillée jusqu'à
+    // la fin de son créneau, et une autre instance dont l'horloge ou le déclenchement est légèrement décalé ne la
+    // rejoue pas pour le même passage
+    public void unlock(String name, Instant holdUntil) {
+        Instant now = Instant.now();
+        Query query = Query.query(Criteria.where("_id").is(name).and("lockedBy").is(owner));
+        mongoTemplate.updateFirst(query, Update.update("lockedUntil", Date.from(holdUntil.isAfter(now) ? holdUntil : now)),
+                COLLECTION);
+    }
+}
@@ -0,0 +1,114 @@
+package com.user.user_service.scheduling;
+
+import com.mongodb.client.result.UpdateResult;
+import com.user.user_service.model.Loan;
+import com.user.user_service.service.LoanAnalyticsService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Passe en EN_RETARD les emprunts non rendus dont la date de retour prévue est dépassée
+@Component
+public class OverdueLoanSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(OverdueLoanSweeper.class);
+
+    static final String LOCK_NAME = "overdue-loan-sweeper";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoJobLock jobLock;
+
+    @Autowired
+    private LoanAnalyticsService analyticsService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Doit rester supérieure à la durée d'un passage
+    @Value("${loans.overdue-sweeper.lock-lease:10m}")
+    private Duration lockLease;
+
+    // Durée minimale de détention du verrou, même après un passage rapide ; doit rester inférieure à l'intervalle cron
+    @Value("${loans.overdue-sweeper.lock-at-least-for:5m}")
+    private Duration lockAtLeastFor;
+
+    private Timer sweepTimer;
+    private Counter markedCounter;
+    private Counter skippedCounter;
+    private final AtomicLong lastMarked = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        sweepTimer = Timer.builder("loans.overdue.sweep")
+                .description("Durée d'un passage de la tâche des retards")
+                .register(meterRegistry);
+        markedCounter = Counter.builder("loans.overdue.marked")
+                .description("Emprunts passés en EN_RETARD")
+                .register(meterRegistry);
+        skippedCounter = Counter.builder("loans.overdue.sweep.skipped")
+                .description("Passages ignorés car une autre instance tenait le verrou")
+                .register(meterRegistry);
+        Gauge.builder("loans.overdue.last.marked", lastMarked, AtomicLong::get)
+                .description("Emprunts passés en EN_RETARD lors du dernier passage")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${loans.overdue-sweeper.cron:0 0 * * * *}")
+    public void sweep() {
+        if (!jobLock.tryLock(LOCK_NAME, lockLease)) {
+            skippedCounter.increment();
+            return;
+        }
+        Instant start = Instant.now();
+        try {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            long marked = markOverdue(LocalDate.now());
+            sample.stop(sweepTimer);
+            markedCounter.increment(marked);
+            lastMarked.set(marked);
+            log.info("Emprunts passés en retard : {}", marked);
+        } finally {
+            jobLock.unlock(LOCK_NAME, start.plus(lockAtLeastFor));
+        }
+    }
+
+    // Un updateMany par utilisateur concerné, servi par l'index (statut, dateRetourPrevue) : le nombre d'emprunts
+    // réellement passés en retard est ajouté aux statistiques de l'utilisateur, et chacun est marqué compté
+    public long markOverdue(LocalDate today) {
+        List<String> userIds = mongoTemplate.findDistinct(overdue(today), "userId", Loan.class, String.class);
+        long marked = 0;
+        for (String userId : userIds) {
+            Query query = overdue(today).addCriteria(Criteria.where("userId").is(userId));
+            UpdateResult result = mongoTemplate.updateMulti(query, Update.update("statut", Loan.LoanStatus.EN_RETARD)
+                    .set(Loan.OVERDUE_COUNTED, true), Loan.class);
+            analyticsService.recordOverdue(userId, result.getModifiedCount());
+            marked += result.getModifiedCount();
+        }
+        return marked;
+    }
+
+    private static Query overdue(LocalDate today) {
+        return Query.query(Criteria.where("statut").is(Loan.LoanStatus.EMPRUNTE)
+                .and("dateRetourPrevue").lt(today));
+    }
+}
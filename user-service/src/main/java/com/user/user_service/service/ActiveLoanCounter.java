@@ -0,0 +1,99 @@
+package com.user.user_service.service;
+
+import com.user.user_service.model.User;
+import com.user.user_service.repository.UserRepository;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationExpression;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+// Nombre d'emprunts en cours de chaque utilisateur, stocké dans le document utilisateur (champ empruntsActifs).
+// La limite est vérifiée et le compteur incrémenté dans la même mise à jour conditionnelle :
+// deux emprunts simultanés ne peuvent pas dépasser la limite, sans compter les emprunts à chaque demande.
+@Service
+public class ActiveLoanCounter {
+
+    public static final String FIELD = "empruntsActifs";
+    public static final String TOUCHED = "empruntsModifiesLe";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Value("${loans.max-active-per-user:5}")
+    private int maxActiveLoans;
+
+    // Réserve des places pour de nouveaux emprunts et renvoie l'utilisateur (vide s'il n'existe pas).
+    // IllegalStateException si la limite serait dépassée.
+    public Optional<User> acquire(String userId, int slots) {
+        if (slots > maxActiveLoans) {
+            throw limitReached();
+        }
+        // Un utilisateur créé avant l'ajout du compteur n'a pas encore le champ : $inc le crée
+        Query query = Query.query(Criteria.where("_id").is(userId)
+                .orOperator(Criteria.where(FIELD).lte(maxActiveLoans - slots), Criteria.where(FIELD).exists(false)));
+        User user = mongoTemplate.findAndModify(query, new Update().inc(FIELD, slots).set(TOUCHED, Instant.now()),
+                FindAndModifyOptions.options().returnNew(true), User.class);
+        if (user != null) {
+            return Optional.of(user);
+        }
+        if (userRepository.existsById(userId)) {
+            throw limitReached();
+        }
+        return Optional.empty();
+    }
+
+    // Places accordées par acquireUpTo, de 0 au nombre demandé
+    public record Acquired(User user, int slots) {
+    }
+
+    // Emprunt groupé : réserve autant de places que possible, jusqu'à "slots", dans la même mise à jour conditionnelle
+    // (le compteur est porté au plus à la limite). Renvoie l'utilisateur tel qu'il était avant et le nombre de places
+    // accordées, 0 s'il est déjà à sa limite ; vide s'il n'existe pas.
+    public Optional<Acquired> acquireUpTo(String userId, int slots) {
+        Document current = new Document("$ifNull", List.of("$" + FIELD, 0));
+        AggregationExpression capped = context -> new Document("$min",
+                List.of(maxActiveLoans, new Document("$add", List.of(current, slots))));
+        AggregationUpdate update = AggregationUpdate.update()
+                .set(FIELD).toValue(capped)
+                .set(TOUCHED).toValue(Date.from(Instant.now()));
+        Query query = Query.query(Criteria.where("_id").is(userId)
+                .orOperator(Criteria.where(FIELD).lt(maxActiveLoans), Criteria.where(FIELD).exists(false)));
+        User before = mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(false), User.class);
+        if (before != null) {
+            return Optional.of(new Acquired(before, Math.min(slots, maxActiveLoans - before.getEmpruntsActifs())));
+        }
+        return userRepository.findById(userId).map(user -> new Acquired(user, 0));
+    }
+
+    // Libère des places (emprunt rendu, ou emprunt finalement pas créé). Le compteur ne descend pas sous zéro.
+    // Chaque modification date le compteur (TOUCHED) pour que ActiveLoanReconciler ne corrige pas un emprunt en cours.
+    public void release(String userId, int slots) {
+        if (slots <= 0) {
+            return;
+        }
+        mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(userId).and(FIELD).gte(slots)),
+                new Update().inc(FIELD, -slots).set(TOUCHED, Instant.now()), User.class);
+    }
+
+    public int getMaxActiveLoans() {
+        return maxActiveLoans;
+    }
+
+    private IllegalStateException limitReached() {
+        return new IllegalStateException("Nombre maximal d'emprunts en cours atteint (" + maxActiveLoans + ")");
+    }
+}
@@ -0,0 +1,374 @@
+package com.user.user_service.service;
+
+import com.mongodb.client.MongoCollection;
+import com.user.user_service.client.BookCache;
+import com.user.user_service.dto.BookDto;
+import com.user.user_service.dto.LoanDurationStatsDto;
+import com.user.user_service.dto.LoanPeriodStatsDto;
+import com.user.user_service.dto.TopBookDto;
+import com.user.user_service.dto.UserOverdueRateDto;
+import com.user.user_service.model.Loan;
+import com.user.user_service.model.User;
+import com.user.user_service.scheduling.MongoJobLock;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TimeZone;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+// Statistiques des emprunts. Les compteurs quotidiens (collection loan_daily_stats, un document par jour
+// identifié par sa date "2025-03-14") sont incrémentés à chaque emprunt et à chaque retour : les tableaux
+// de bord agrègent quelques centaines de documents au lieu de parcourir l'historique des emprunts.
+// De même, les compteurs par utilisateur (collection loan_user_stats, un document par utilisateur) servent
+// le taux de retard : emprunts à chaque emprunt, retards au passage en EN_RETARD ou à un retour tardif.
+@Service
+public class LoanAnalyticsService {
+
+    private static final Logger log = LoggerFactory.getLogger(LoanAnalyticsService.class);
+
+    static final String ROLLUP_COLLECTION = "loan_daily_stats";
+    static final String USER_ROLLUP_COLLECTION = "loan_user_stats";
+    static final String REBUILD_LOCK = "loan-rollup-rebuild";
+
+    public static final int DEFAULT_LIMIT = 10;
+    public static final int MAX_LIMIT = 100;
+
+    private static final long MILLIS_PER_DAY = 86_400_000L;
+
+    public enum Granularity {
+        DAY,
+        MONTH
+    }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private MongoJobLock jobLock;
+
+    @Autowired
+    private BookCache bookCache;
+
+    // Un upsert par jour d'emprunt : "emprunts" et, par livre, "livres.<bookId>"
+    public void recordCheckouts(List<Loan> loans) {
+        Map<LocalDate, List<Loan>> byDay = loans.stream()
+                .filter(loan -> loan.getDateEmprunt() != null)
+                .collect(Collectors.groupingBy(Loan::getDateEmprunt));
+        byDay.forEach((day, dayLoans) -> {
+            Update update = new Update().inc("emprunts", dayLoans.size());
+            dayLoans.stream()
+                    .map(Loan::getBookId)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.groupingBy(bookId -> bookId, Collectors.counting()))
+                    .forEach((bookId, count) -> update.inc("livres." + bookId, count));
+            upsert(day, update);
+        });
+        loans.stream()
+                .map(Loan::getUserId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.groupingBy(userId -> userId, Collectors.counting()))
+                .forEach((userId, count) -> upsertUser(userId, new Update().inc("emprunts", count)));
+    }
+
+    // Emprunts d'un utilisateur passés en EN_RETARD par OverdueLoanSweeper
+    public void recordOverdue(String userId, long count) {
+        if (count > 0) {
+            upsertUser(userId, new Update().inc("enRetard", count));
+        }
+    }
+
+    // Un upsert par jour de retour : nombre de retours, durée cumulée et retours en retard
+    public void recordReturns(List<Loan> loans) {
+        Map<LocalDate, List<Loan>> byDay = loans.stream()
+                .filter(loan -> loan.getDateRetourEffective() != null)
+                .collect(Collectors.groupingBy(Loan::getDateRetourEffective));
+        byDay.forEach((day, dayLoans) -> {
+            long duree = 0;
+            long enRetard = 0;
+            for (Loan loan : dayLoans) {
+                if (loan.getDateEmprunt() != null) {
+                    duree += ChronoUnit.DAYS.between(loan.getDateEmprunt(), day);
+                }
+                if (loan.getDateRetourPrevue() != null && day.isAfter(loan.getDateRetourPrevue())) {
+                    enRetard++;
+                }
+            }
+            upsert(day, new Update()
+                    .inc("retours", dayLoans.size())
+                    .inc("dureeTotaleJours", duree)
+                    .inc("retoursEnRetard", enRetard));
+        });
+        // Retours tardifs d'emprunts que la tâche des retards n'avait pas encore passés en EN_RETARD
+        loans.stream()
+                .filter(loan -> loan.getUserId() != null && isLate(loan) && !Boolean.TRUE.equals(loan.getRetardCompte()))
+                .collect(Collectors.groupingBy(Loan::getUserId, Collectors.counting()))
+                .forEach(this::recordOverdue);
+    }
+
+    public List<LoanPeriodStatsDto> getLoansPerPeriod(LocalDate from, LocalDate to, Granularity granularity) {
+        // Le mois est le préfixe "2025-03" de l'identifiant du jour
+        Object periode = granularity == Granularity.MONTH
+                ? new Document("$substrBytes", List.of("$_id", 0, 7))
+                : "$_id";
+        List<Document> pipeline = List.of(
+                new Document("$match", dayRange(from, to)),
+                new Document("$group", new Document("_id", periode)
+                        .append("emprunts", new Document("$sum", "$emprunts"))
+                        .append("retours", new Document("$sum", "$retours"))),
+                new Document("$sort", new Document("_id", 1)));
+
+        List<LoanPeriodStatsDto> result = new ArrayList<>();
+        for (Document doc : rollups().aggregate(pipeline)) {
+            result.add(new LoanPeriodStatsDto(doc.getString("_id"), number(doc, "emprunts"), number(doc, "retours")));
+        }
+        return result;
+    }
+
+    public List<TopBookDto> getTopBooks(LocalDate from, LocalDate to, Integer limit) {
+        List<Document> pipeline = List.of(
+                new Document("$match", dayRange(from, to)),
+                new Document("$project", new Document("livres", new Document("$objectToArray", "$livres"))),
+                new Document("$unwind", "$livres"),
+                new Document("$group", new Document("_id", "$livres.k")
+                        .append("emprunts", new Document("$sum", "$livres.v"))),
+                new Document("$sort", new Document("emprunts", -1).append("_id", 1)),
+                new Document("$limit", limit(limit)));
+
+        List<TopBookDto> result = new ArrayList<>();
+        for (Document doc : rollups().aggregate(pipeline)) {
+            result.add(new TopBookDto(Long.valueOf(doc.getString("_id")), null, number(doc, "emprunts")));
+        }
+
+        // Titres en un appel groupé ; le classement reste utile sans eux
+        try {
+            Map<Long, BookDto> books = bookCache.getBooks(result.stream().map(TopBookDto::getBookId).collect(Collectors.toList()));
+            result.forEach(top -> {
+                BookDto book = books.get(top.getBookId());
+                if (book != null) {
+                    top.setTitreLivre(book.getTitre());
+                }
+            });
+        } catch (Exception e) {
+            log.warn("Titres des livres les plus empruntés indisponibles : {}", e.getMessage());
+        }
+        return result;
+    }
+
+    public LoanDurationStatsDto getLoanDurations(LocalDate from, LocalDate to) {
+        List<Document> pipeline = List.of(
+                new Document("$match", dayRange(from, to)),
+                new Document("$group", new Document("_id", null)
+                        .append("retours", new Document("$sum", "$retours"))
+                        .append("dureeTotaleJours", new Document("$sum", "$dureeTotaleJours"))
+                        .append("retoursEnRetard", new Document("$sum", "$retoursEnRetard"))));
+
+        Document doc = rollups().aggregate(pipeline).first();
+        long retours = doc == null ? 0 : number(doc, "retours");
+        if (retours == 0) {
+            return new LoanDurationStatsDto(0, 0, 0, 0);
+        }
+        long enRetard = number(doc, "retoursEnRetard");
+        return new LoanDurationStatsDto(retours, (double) number(doc, "dureeTotaleJours") / retours,
+                enRetard, (double) enRetard / retours);
+    }
+
+    // Utilisateurs ayant le plus fort taux de retard, parmi ceux qui ont au moins minLoans emprunts
+    // (un document de compteurs par utilisateur, sans relire les emprunts)
+    public List<UserOverdueRateDto> getOverdueRates(Integer limit, Integer minLoans) {
+        List<Document> pipeline = List.of(
+                new Document("$match", new Document("emprunts",
+                        new Document("$gte", minLoans == null ? 1 : Math.max(1, minLoans)))),
+                new Document("$addFields", new Document("tauxRetard",
+                        new Document("$divide", List.of("$enRetard", "$emprunts")))),
+                new Document("$sort", new Document("tauxRetard", -1).append("enRetard", -1).append("_id", 1)),
+                new Document("$limit", limit(limit)));
+
+        List<Document> docs = new ArrayList<>();
+        userRollups().aggregate(pipeline).into(docs);
+        Map<String, User> users = mongoTemplate.find(Query.query(Criteria.where("_id")
+                        .in(docs.stream().map(doc -> doc.getString("_id")).collect(Collectors.toList()))), User.class)
+                .stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        return docs.stream()
+                .map(doc -> toOverdueRate(doc.getString("_id"), doc, users.get(doc.getString("_id"))))
+                .collect(Collectors.toList());
+    }
+
+    // Taux de retard d'un utilisateur : lecture de son document de compteurs
+    public UserOverdueRateDto getOverdueRate(String userId) {
+        Document doc = userRollups().find(new Document("_id", userId)).first();
+        return toOverdueRate(userId, doc, mongoTemplate.findById(userId, User.class));
+    }
+
+    // Recalcule tous les compteurs quotidiens et par utilisateur depuis l'historique des emprunts, archives comprises
+    // (agrégations $merge). Les emprunts et retours enregistrés pendant le recalcul peuvent être comptés deux fois.
+    public void rebuildRollups() {
+        if (!jobLock.tryLock(REBUILD_LOCK, Duration.ofMinutes(30))) {
+            throw new IllegalStateException("Un recalcul des statistiques est déjà en cours");
+        }
+        try {
+            mongoTemplate.dropCollection(ROLLUP_COLLECTION);
+            mongoTemplate.dropCollection(USER_ROLLUP_COLLECTION);
+            String timezone = TimeZone.getDefault().getID();
+            Document merge = new Document("$merge", new Document("into", ROLLUP_COLLECTION)
+                    .append("on", "_id")
+                    .append("whenMatched", "merge")
+                    .append("whenNotMatched", "insert"));
+
+            loans().aggregate(List.of(
+                    withArchive(),
+                    new Document("$match", new Document("dateEmprunt", new Document("$ne", null))),
+                    new Document("$group", new Document("_id", new Document("jour", day("$dateEmprunt", timezone))
+                            .append("livre", new Document("$toString", "$bookId")))
+                            .append("n", new Document("$sum", 1))),
+                    new Document("$group", new Document("_id", "$_id.jour")
+                            .append("emprunts", new Document("$sum", "$n"))
+                            .append("livres", new Document("$push", new Document("k", "$_id.livre").append("v", "$n")))),
+                    new Document("$project", new Document("emprunts", 1)
+                            .append("livres", new Document("$arrayToObject", "$livres"))),
+                    merge)).allowDiskUse(true).toCollection();
+
+            Document late = new Document("$and", List.of(
+                    new Document("$ne", List.of("$dateRetourPrevue", null)),
+                    new Document("$gt", List.of("$dateRetourEffective", "$dateRetourPrevue"))));
+            loans().aggregate(List.of(
+                    withArchive(),
+                    new Document("$match", new Document("statut", Loan.LoanStatus.RETOURNE.name())
+                            .append("dateRetourEffective", new Document("$ne", null))),
+                    new Document("$group", new Document("_id", day("$dateRetourEffective", timezone))
+                            .append("retours", new Document("$sum", 1))
+                            .append("dureeTotaleJours", new Document("$sum", new Document("$round", List.of(
+                                    new Document("$divide", List.of(
+                                            new Document("$subtract", List.of("$dateRetourEffective", "$dateEmprunt")),
+                                            MILLIS_PER_DAY)), 0))))
+                            .append("retoursEnRetard", new Document("$sum", new Document("$cond", List.of(late, 1, 0))))),
+                    merge)).allowDiskUse(true).toCollection();
+
+            // Les emprunts déjà EN_RETARD sont comptés ici : marqués, ils ne le seront pas une seconde fois à leur retour.
+            // Ceux dont la date est dépassée mais pas encore traités le seront par la tâche des retards.
+            mongoTemplate.updateMulti(Query.query(Criteria.where("statut").is(Loan.LoanStatus.EN_RETARD)),
+                    Update.update(Loan.OVERDUE_COUNTED, true), Loan.class);
+            Document overdue = new Document("$or", List.of(
+                    new Document("$eq", List.of("$statut", Loan.LoanStatus.EN_RETARD.name())),
+                    late));
+            loans().aggregate(List.of(
+                    withArchive(),
+                    new Document("$match", new Document("userId", new Document("$ne", null))),
+                    new Document("$group", new Document("_id", "$userId")
+                            .append("emprunts", new Document("$sum", 1))
+                            .append("enRetard", new Document("$sum", new Document("$cond", List.of(overdue, 1, 0))))),
+                    new Document("$merge", new Document("into", USER_ROLLUP_COLLECTION)
+                            .append("on", "_id")
+                            .append("whenMatched", "merge")
+                            .append("whenNotMatched", "insert")))).allowDiskUse(true).toCollection();
+            log.info("Statistiques recalculées : {} jours, {} utilisateurs", rollups().countDocuments(),
+                    userRollups().countDocuments());
+        } finally {
+            jobLock.unlock(REBUILD_LOCK);
+        }
+    }
+
+    // Au premier démarrage, les emprunts existants n'ont pas encore de compteurs quotidiens ni par utilisateur
+    @Async
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillRollups() {
+        try {
+            if ((rollups().estimatedDocumentCount() == 0 || userRollups().estimatedDocumentCount() == 0)
+                    && loans().estimatedDocumentCount() > 0) {
+                rebuildRollups();
+            }
+        } catch (Exception e) {
+            log.warn("Calcul initial des statistiques quotidiennes interrompu : {}", e.getMessage());
+        }
+    }
+
+    private void upsert(LocalDate day, Update update) {
+        try {
+            mongoTemplate.upsert(Query.query(Criteria.where("_id").is(day.toString())), update, ROLLUP_COLLECTION);
+        } catch (RuntimeException e) {
+            // Une statistique manquée ne doit pas faire échouer l'emprunt ; le recalcul la rattrape
+            log.warn("Mise à jour des statistiques du {} impossible : {}", day, e.getMessage());
+        }
+    }
+
+    private void upsertUser(String userId, Update update) {
+        try {
+            mongoTemplate.upsert(Query.query(Criteria.where("_id").is(userId)), update, USER_ROLLUP_COLLECTION);
+        } catch (RuntimeException e) {
+            log.warn("Mise à jour des statistiques de l'utilisateur {} impossible : {}", userId, e.getMessage());
+        }
+    }
+
+    private static boolean isLate(Loan loan) {
+        return loan.getDateRetourPrevue() != null && loan.getDateRetourEffective() != null
+                && loan.getDateRetourEffective().isAfter(loan.getDateRetourPrevue());
+    }
+
+    // Ajoute les emprunts archivés à ceux de la collection principale
+    private static Document withArchive() {
+        return new Document("$unionWith", Loan.ARCHIVE_COLLECTION);
+    }
+
+    private static UserOverdueRateDto toOverdueRate(String userId, Document doc, User user) {
+        long emprunts = doc == null ? 0 : number(doc, "emprunts");
+        long enRetard = doc == null ? 0 : number(doc, "enRetard");
+        return new UserOverdueRateDto(userId, user == null ? null : user.getNom(), user == null ? null : user.getPrenom(),
+                emprunts, enRetard, emprunts == 0 ? 0 : (double) enRetard / emprunts);
+    }
+
+    private static Document dayRange(LocalDate from, LocalDate to) {
+        Document range = new Document();
+        if (from != null) {
+            range.append("$gte", from.toString());
+        }
+        if (to != null) {
+            range.append("$lte", to.toString());
+        }
+        return range.isEmpty() ? new Document() : new Document("_id", range);
+    }
+
+    // Jour "2025-03-14" d'une date enregistrée par Spring Data (minuit dans le fuseau de la JVM)
+    private static Document day(String field, String timezone) {
+        return new Document("$dateToString", new Document("format", "%Y-%m-%d")
+                .append("date", field)
+                .append("timezone", timezone));
+    }
+
+    private static int limit(Integer limit) {
+        return limit == null ? DEFAULT_LIMIT : Math.max(1, Math.min(limit, MAX_LIMIT));
+    }
+
+    private static long number(Document doc, String field) {
+        Object value = doc.get(field);
+        return value instanceof Number n ? n.longValue() : 0;
+    }
+
+    private MongoCollection<Document> rollups() {
+        return mongoTemplate.getCollection(ROLLUP_COLLECTION);
+    }
+
+    private MongoCollection<Document> userRollups() {
+        return mongoTemplate.getCollection(USER_ROLLUP_COLLECTION);
+    }
+
+    private MongoCollection<Document> loans() {
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(Loan.class));
+    }
+}
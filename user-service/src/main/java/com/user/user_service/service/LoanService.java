@@ -1,36 +1,121 @@
 package com.user.user_service.service;
 
+import com.mongodb.client.result.UpdateResult;
+import com.user.user_service.client.BookCache;
 import com.user.user_service.client.BookServiceClient;
+import com.user.user_service.client.RemoteCallExecutor;
 import com.user.user_service.dto.*;
 import com.user.user_service.model.Loan;
+import com.user.user_service.model.PendingRelease;
 import com.user.user_service.model.User;
 import com.user.user_service.repository.LoanRepository;
 import com.user.user_service.repository.UserRepository;
+import feign.FeignException;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class LoanService {
 
+    private static final Logger log = LoggerFactory.getLogger(LoanService.class);
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+    public static final int MAX_BATCH_SIZE = 50;
+
     @Autowired
     private LoanRepository loanRepository;
     
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private RemoteCallExecutor remoteCalls;
+    
     @Autowired
     private UserRepository userRepository;
     
+    @Autowired
+    private ActiveLoanCounter activeLoans;
+    
     @Autowired
     private BookServiceClient bookServiceClient;
     
+    @Autowired
+    private BookCache bookCache;
+    
+    @Autowired
+    private LoanAnalyticsService analyticsService;
+    
     public List<LoanDto> getAllLoans() {
-        return loanRepository.findAll().stream()
-                .map(this::enrichLoanDto)
-                .collect(Collectors.toList());
+        return enrichLoanDtos(loanRepository.findAll());
+    }
+    
+    // Pagination par curseur sur l'ObjectId (_id > curseur, tri sur _id), sans skip.
+    // En mode "lean", seuls les champs stockés de l'emprunt sont renvoyés, sans appel au service des livres.
+    public LoanPageDto getLoansPage(String cursor, Integer size, Loan.LoanStatus statut, String userId,
+                                    LocalDate from, LocalDate to, boolean lean) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        
+        Criteria criteria = new Criteria();
+        if (cursor != null && !cursor.isBlank()) {
+            criteria = Criteria.where("_id").gt(decodeCursor(cursor));
+        }
+        if (statut != null) {
+            criteria = criteria.and("statut").is(statut);
+        }
+        if (userId != null && !userId.isBlank()) {
+            criteria = criteria.and("userId").is(userId);
+        }
+        if (from != null || to != null) {
+            criteria = criteria.and("dateEmprunt");
+            if (from != null) {
+                criteria = criteria.gte(from);
+            }
+            if (to != null) {
+                criteria = criteria.lte(to);
+            }
+        }
+        
+        // On lit un document de plus pour savoir s'il existe une page suivante
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .limit(pageSize + 1);
+        List<Loan> loans = mongoTemplate.find(query, Loan.class);
+        boolean hasNext = loans.size() > pageSize;
+        List<Loan> page = hasNext ? loans.subList(0, pageSize) : loans;
+        
+        List<LoanDto> content = lean
+                ? page.stream().map(loan -> toLoanDto(loan, null, null)).collect(Collectors.toList())
+                : enrichLoanDtos(page);
+        String nextCursor = hasNext ? page.get(page.size() - 1).getId() : null;
+        return new LoanPageDto(content, nextCursor, pageSize);
     }
     
     public List<LoanDto> getLoansByUserId(String userId) {
@@ -38,13 +123,15 @@ public class LoanService {
             throw new NoSuchElementException("Utilisateur non trouvé avec l'id: " + userId);
         }
         
-        return loanRepository.findByUserId(userId).stream()
-                .map(this::enrichLoanDto)
-                .collect(Collectors.toList());
+        return enrichLoanDtos(loanRepository.findByUserId(userId));
     }
     
     public LoanDto getLoanById(String id) {
         Optional<Loan> loan = loanRepository.findById(id);
+        if (!loan.isPresent()) {
+            // Un emprunt rendu depuis longtemps a pu être archivé
+            loan = Optional.ofNullable(mongoTemplate.findById(id, Loan.class, Loan.ARCHIVE_COLLECTION));
+        }
         if (loan.isPresent()) {
             return enrichLoanDto(loan.get());
         } else {
@@ -52,49 +139,232 @@ public class LoanService {
         }
     }
     
+    // Historique complet (emprunts actifs et archivés), paginé par curseur sur l'ID dans l'ordre de création.
+    // Chaque collection fournit au plus une page, fusionnée en mémoire.
+    public LoanPageDto getLoanHistory(String userId, String cursor, Integer size, boolean lean) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        
+        Criteria criteria = new Criteria();
+        if (cursor != null && !cursor.isBlank()) {
+            criteria = Criteria.where("_id").gt(decodeCursor(cursor));
+        }
+        if (userId != null && !userId.isBlank()) {
+            criteria = criteria.and("userId").is(userId);
+        }
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .limit(pageSize + 1);
+        
+        // Collection active d'abord : un emprunt archivé entre les deux lectures est retrouvé dans l'archive.
+        // Un emprunt présent dans les deux (archivage en cours) n'est gardé qu'une fois.
+        // Les IDs hexadécimaux de même longueur se trient comme les ObjectId.
+        TreeMap<String, Loan> merged = new TreeMap<>();
+        mongoTemplate.find(query, Loan.class).forEach(loan -> merged.put(loan.getId(), loan));
+        mongoTemplate.find(query, Loan.class, Loan.ARCHIVE_COLLECTION).forEach(loan -> merged.putIfAbsent(loan.getId(), loan));
+        
+        List<Loan> loans = new ArrayList<>(merged.values());
+        boolean hasNext = loans.size() > pageSize;
+        List<Loan> page = hasNext ? loans.subList(0, pageSize) : loans;
+        
+        List<LoanDto> content = lean
+                ? page.stream().map(loan -> toLoanDto(loan, null, null)).collect(Collectors.toList())
+                : enrichLoanDtos(page);
+        String nextCursor = hasNext ? page.get(page.size() - 1).getId() : null;
+        return new LoanPageDto(content, nextCursor, pageSize);
+    }
+    
     public LoanDto createLoan(CreateLoanRequest request) {
-        // Vérifier que l'utilisateur existe
-        Optional<User> user = userRepository.findById(request.getUserId());
-        if (!user.isPresent()) {
-            throw new NoSuchElementException("Utilisateur non trouvé avec l'id: " + request.getUserId());
+        // Date de retour prévue obligatoire (vérifiée avant de réserver le livre)
+        if (request.getDateRetourPrevue() == null) {
+            throw new IllegalArgumentException("La date de retour prévue est obligatoire");
         }
         
-        // Vérifier que le livre existe et est disponible
+        // Vérifier que l'utilisateur existe (en lui réservant une place d'emprunt) et réserver le livre en parallèle.
+        // La réservation se fait en un seul appel : le service des livres refuse (409) si un autre emprunt
+        // l'a réservé entre-temps
+        Instant deadline = remoteCalls.deadline();
+        String reservationToken = new ObjectId().toHexString();
+        CompletableFuture<Optional<User>> userLookup =
+                remoteCalls.submit(() -> activeLoans.acquire(request.getUserId(), 1), deadline);
+        CompletableFuture<BookDto> reservation =
+                remoteCalls.submit(() -> reserveBook(request.getBookId(), reservationToken), deadline);
+        
+        Optional<User> user;
+        BookDto book;
         try {
-            BookDto book = bookServiceClient.getBookById(request.getBookId());
-            if (!book.isDisponible()) {
-                throw new IllegalStateException("Le livre n'est pas disponible pour l'emprunt: " + request.getBookId());
+            user = remoteCalls.await(userLookup, deadline);
+            if (!user.isPresent()) {
+                throw new NoSuchElementException("Utilisateur non trouvé avec l'id: " + request.getUserId());
             }
-            
-            // Mettre à jour la disponibilité du livre
-            bookServiceClient.updateBookAvailability(request.getBookId(), new AvailabilityRequest(false));
-            
-            // Créer l'emprunt
-            Loan loan = new Loan();
-            loan.setUserId(request.getUserId());
-            loan.setBookId(request.getBookId());
-            
-            // Si une date d'emprunt est spécifiée, l'utiliser. Sinon, date du jour
-            if (request.getDateEmprunt() != null) {
-                loan.setDateEmprunt(request.getDateEmprunt());
+            book = remoteCalls.await(reservation, deadline);
+        } catch (RuntimeException e) {
+            // Livre réservé pour rien (utilisateur absent ou à sa limite, échéance dépassée) : il est libéré dès que
+            // la réservation aboutit. De même pour la place d'emprunt de l'utilisateur.
+            reservation.thenAccept(reserved -> releaseBook(request.getBookId(), reservationToken));
+            userLookup.thenAccept(found -> found.ifPresent(u -> activeLoans.release(request.getUserId(), 1)));
+            throw e;
+        }
+        bookCache.invalidate(request.getBookId());
+        
+        // Créer l'emprunt
+        Loan loan = newLoan(user.get(), book, request.getDateEmprunt(), request.getDateRetourPrevue(), reservationToken);
+        
+        // Enregistrer l'emprunt, et libérer le livre si l'enregistrement échoue
+        Loan savedLoan;
+        try {
+            savedLoan = loanRepository.save(loan);
+        } catch (RuntimeException e) {
+            releaseBook(request.getBookId(), reservationToken);
+            activeLoans.release(request.getUserId(), 1);
+            throw e;
+        }
+        analyticsService.recordCheckouts(List.of(savedLoan));
+        return toLoanDto(savedLoan, book, user.get());
+    }
+    
+    // Emprunt groupé : l'utilisateur est vérifié une fois, tous les livres sont réservés en un appel
+    // au service des livres et tous les prêts sont insérés en une écriture. Chaque livre a son propre résultat.
+    public LoanBatchResultDto checkoutBatch(BatchCheckoutRequest request) {
+        if (request.getDateRetourPrevue() == null) {
+            throw new IllegalArgumentException("La date de retour prévue est obligatoire");
+        }
+        List<Long> bookIds = distinct(request.getBookIds());
+        
+        Instant deadline = remoteCalls.deadline();
+        // Un jeton de réservation pour tout le lot : chaque prêt le garde pour la libération de son livre
+        String reservationToken = new ObjectId().toHexString();
+        // Autant de places d'emprunt que possible, jusqu'à une par livre demandé ; celles des livres non empruntés
+        // sont rendues ensuite. Les livres sont réservés en parallèle, puis ceux au-delà des places obtenues libérés.
+        CompletableFuture<Optional<ActiveLoanCounter.Acquired>> userLookup =
+                remoteCalls.submit(() -> activeLoans.acquireUpTo(request.getUserId(), bookIds.size()), deadline);
+        CompletableFuture<AvailabilityBatchDto> reservations =
+                remoteCalls.submit(() -> bookServiceClient.reserveBooks(bookIds, reservationToken), deadline);
+        
+        Optional<ActiveLoanCounter.Acquired> acquired;
+        AvailabilityBatchDto reservation;
+        try {
+            acquired = remoteCalls.await(userLookup, deadline);
+            if (!acquired.isPresent()) {
+                throw new NoSuchElementException("Utilisateur non trouvé avec l'id: " + request.getUserId());
             }
-            
-            // Date de retour prévue obligatoire
-            if (request.getDateRetourPrevue() == null) {
-                throw new IllegalArgumentException("La date de retour prévue est obligatoire");
+            reservation = remoteCalls.await(reservations, deadline);
+        } catch (RuntimeException e) {
+            reservations.thenAccept(reserved -> releaseBooks(
+                    reserved.getBooks().stream().map(BookDto::getId).collect(Collectors.toList()), reservationToken));
+            userLookup.thenAccept(found -> found.ifPresent(a -> activeLoans.release(request.getUserId(), a.slots())));
+            throw e;
+        }
+        User user = acquired.get().user();
+        int slots = acquired.get().slots();
+        reservation.getBooks().forEach(book -> bookCache.invalidate(book.getId()));
+        
+        // Livres réservés dans l'ordre de la demande : les premiers dans la limite des places obtenues sont empruntés,
+        // les suivants sont libérés aussitôt et signalés comme refusés par la limite
+        Map<Long, BookDto> reserved = reservation.getBooks().stream()
+                .collect(Collectors.toMap(BookDto::getId, Function.identity()));
+        List<BookDto> toLend = new ArrayList<>();
+        Set<Long> overLimit = new HashSet<>();
+        for (Long bookId : bookIds) {
+            BookDto book = reserved.get(bookId);
+            if (book == null) {
+                continue;
             }
-            loan.setDateRetourPrevue(request.getDateRetourPrevue());
-            
-            // Enregistrer l'emprunt
-            Loan savedLoan = loanRepository.save(loan);
-            return enrichLoanDto(savedLoan);
-            
-        } catch (Exception e) {
-            if (e instanceof NoSuchElementException) {
-                throw new NoSuchElementException("Livre non trouvé avec l'id: " + request.getBookId());
+            if (toLend.size() < slots) {
+                toLend.add(book);
+            } else {
+                overLimit.add(bookId);
             }
+        }
+        releaseBooks(overLimit, reservationToken);
+        
+        List<Loan> loans = toLend.stream()
+                .map(book -> newLoan(user, book, request.getDateEmprunt(), request.getDateRetourPrevue(), reservationToken))
+                .collect(Collectors.toList());
+        
+        // Une seule insertion groupée ; si elle échoue, les livres réservés sont libérés en un appel
+        Map<Long, Loan> saved;
+        try {
+            saved = loans.isEmpty() ? Map.of() : loanRepository.insert(loans).stream()
+                    .collect(Collectors.toMap(Loan::getBookId, Function.identity()));
+        } catch (RuntimeException e) {
+            releaseBooks(loans.stream().map(Loan::getBookId).collect(Collectors.toList()), reservationToken);
+            activeLoans.release(request.getUserId(), slots);
             throw e;
         }
+        activeLoans.release(request.getUserId(), slots - saved.size());
+        analyticsService.recordCheckouts(new ArrayList<>(saved.values()));
+        
+        Set<Long> missing = Set.copyOf(reservation.getMissingIds());
+        List<LoanBatchItemDto> items = new ArrayList<>();
+        for (Long bookId : bookIds) {
+            Loan loan = saved.get(bookId);
+            if (loan != null) {
+                items.add(new LoanBatchItemDto(bookId, loan.getId(), 201, null, toLoanDto(loan, null, null)));
+            } else if (missing.contains(bookId)) {
+                items.add(new LoanBatchItemDto(bookId, null, 404, "Livre non trouvé avec l'id: " + bookId, null));
+            } else if (overLimit.contains(bookId)) {
+                items.add(new LoanBatchItemDto(bookId, null, 409,
+                        "Nombre maximal d'emprunts en cours atteint (" + activeLoans.getMaxActiveLoans() + ")", null));
+            } else {
+                items.add(new LoanBatchItemDto(bookId, null, 409, "Le livre n'est pas disponible pour l'emprunt: " + bookId, null));
+            }
+        }
+        return batchResult(items);
+    }
+    
+    // Retour groupé : une lecture des prêts, une libération groupée des livres et une seule écriture MongoDB
+    public LoanBatchResultDto returnBatch(BatchReturnRequest request) {
+        List<String> loanIds = distinct(request.getLoanIds());
+        Map<String, Loan> found = loanRepository.findAllById(loanIds).stream()
+                .collect(Collectors.toMap(Loan::getId, Function.identity()));
+        
+        List<Loan> toReturn = loanIds.stream()
+                .map(found::get)
+                .filter(loan -> loan != null && loan.getStatut() != Loan.LoanStatus.RETOURNE)
+                .collect(Collectors.toList());
+        Map<String, LoanDto> returned = new HashMap<>();
+        if (!toReturn.isEmpty()) {
+            // Le filtre sur le statut évite de réécrire un prêt retourné entre-temps par une autre requête.
+            // Une écriture par utilisateur : le nombre de prêts réellement modifiés est retiré de son compteur.
+            // Les libérations des livres sont enregistrées dans la même écriture et envoyées en arrière-plan.
+            String batchId = new ObjectId().toHexString();
+            Update update = new Update()
+                    .set("statut", Loan.LoanStatus.RETOURNE)
+                    .set("dateRetourEffective", LocalDate.now())
+                    .set(Loan.RETURNED_AT, Instant.now())
+                    .set(Loan.PENDING_RELEASE, PendingRelease.now())
+                    .set(Loan.RETURN_BATCH, batchId);
+            Map<String, List<String>> idsByUser = toReturn.stream().collect(Collectors.groupingBy(Loan::getUserId,
+                    Collectors.mapping(Loan::getId, Collectors.toList())));
+            idsByUser.forEach((userId, ids) -> {
+                Query query = Query.query(Criteria.where("id").in(ids).and("statut").ne(Loan.LoanStatus.RETOURNE));
+                UpdateResult result = mongoTemplate.updateMulti(query, update, Loan.class);
+                activeLoans.release(userId, (int) result.getModifiedCount());
+            });
+            
+            // Un prêt retourné entre la lecture et l'écriture par un retour simple ne porte pas la marque du lot :
+            // il est signalé en conflit et n'est compté qu'une fois dans les statistiques
+            Query mine = Query.query(Criteria.where("id").in(toReturn.stream().map(Loan::getId).collect(Collectors.toList()))
+                    .and(Loan.RETURN_BATCH).is(batchId));
+            List<Loan> returnedLoans = mongoTemplate.find(mine, Loan.class);
+            analyticsService.recordReturns(returnedLoans);
+            for (LoanDto dto : enrichLoanDtos(returnedLoans)) {
+                returned.put(dto.getId(), dto);
+            }
+        }
+        
+        List<LoanBatchItemDto> items = new ArrayList<>();
+        for (String loanId : loanIds) {
+            Loan loan = found.get(loanId);
+            if (loan == null) {
+                items.add(new LoanBatchItemDto(null, loanId, 404, "Emprunt non trouvé avec l'id: " + loanId, null));
+            } else if (returned.containsKey(loanId)) {
+                items.add(new LoanBatchItemDto(loan.getBookId(), loanId, 200, null, returned.get(loanId)));
+            } else {
+                items.add(new LoanBatchItemDto(loan.getBookId(), loanId, 409, "Ce livre a déjà été retourné", null));
+            }
+        }
+        return batchResult(items);
     }
     
     public LoanDto returnLoan(String id) {
@@ -103,49 +373,188 @@ public class LoanService {
             throw new NoSuchElementException("Emprunt non trouvé avec l'id: " + id);
         }
         
-        Loan loan = existingLoan.get();
-        if (loan.getStatut() == Loan.LoanStatus.RETOURNE) {
+        if (existingLoan.get().getStatut() == Loan.LoanStatus.RETOURNE) {
             throw new IllegalStateException("Ce livre a déjà été retourné");
         }
         
-        // Mettre à jour l'emprunt
-        loan.setDateRetourEffective(LocalDate.now());
-        loan.setStatut(Loan.LoanStatus.RETOURNE);
-        
-        // Mettre à jour la disponibilité du livre
+        // Le retour et la libération du livre à transmettre sont enregistrés dans la même écriture :
+        // la libération est envoyée au service des livres par AvailabilityOutboxDispatcher, sans attendre ici.
+        // Le filtre sur le statut évite un double retour par deux requêtes simultanées.
+        Query query = Query.query(Criteria.where("id").is(id).and("statut").ne(Loan.LoanStatus.RETOURNE));
+        Update update = new Update()
+                .set("statut", Loan.LoanStatus.RETOURNE)
+                .set("dateRetourEffective", LocalDate.now())
+                .set(Loan.RETURNED_AT, Instant.now())
+                .set(Loan.PENDING_RELEASE, PendingRelease.now());
+        Loan updatedLoan = mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Loan.class);
+        if (updatedLoan == null) {
+            throw new IllegalStateException("Ce livre a déjà été retourné");
+        }
+        activeLoans.release(updatedLoan.getUserId(), 1);
+        analyticsService.recordReturns(List.of(updatedLoan));
+        return enrichLoanDto(updatedLoan);
+    }
+    
+    // Le curseur est l'ObjectId hexadécimal du dernier emprunt de la page précédente
+    static ObjectId decodeCursor(String cursor) {
+        if (!ObjectId.isValid(cursor)) {
+            throw new IllegalArgumentException("Curseur de pagination invalide");
+        }
+        return new ObjectId(cursor);
+    }
+    
+    private BookDto reserveBook(Long bookId, String reservationToken) {
+        try {
+            return bookServiceClient.reserveBook(bookId, reservationToken);
+        } catch (FeignException.NotFound e) {
+            throw new NoSuchElementException("Livre non trouvé avec l'id: " + bookId);
+        } catch (FeignException.Conflict e) {
+            throw new IllegalStateException("Le livre n'est pas disponible pour l'emprunt: " + bookId);
+        }
+    }
+    
+    private void releaseBooks(Collection<Long> bookIds, String reservationToken) {
+        if (bookIds.isEmpty()) {
+            return;
+        }
         try {
-            bookServiceClient.updateBookAvailability(loan.getBookId(), new AvailabilityRequest(true));
+            // Les livres déjà disponibles sont signalés en conflit sans faire échouer les autres
+            bookServiceClient.releaseBooks(bookIds.stream()
+                    .map(bookId -> new BookReleaseDto(bookId, reservationToken))
+                    .collect(Collectors.toList()));
         } catch (Exception e) {
-            // Même si la mise à jour échoue, on continue pour enregistrer le retour
-            System.err.println("Erreur lors de la mise à jour de la disponibilité du livre: " + e.getMessage());
+            // Libération après un emprunt qui n'a pas abouti : l'échec est signalé sans masquer l'erreur d'origine
+            log.warn("Erreur lors de la mise à jour de la disponibilité des livres {} : {}", bookIds, e.getMessage());
+        }
+    }
+    
+    private Loan newLoan(User user, BookDto book, LocalDate dateEmprunt, LocalDate dateRetourPrevue,
+                         String reservationToken) {
+        Loan loan = new Loan();
+        loan.setUserId(user.getId());
+        loan.setBookId(book.getId());
+        loan.setReservationLivre(reservationToken);
+        
+        // Si une date d'emprunt est spécifiée, l'utiliser. Sinon, date du jour
+        if (dateEmprunt != null) {
+            loan.setDateEmprunt(dateEmprunt);
         }
+        loan.setDateRetourPrevue(dateRetourPrevue);
         
-        // Enregistrer les modifications
-        Loan updatedLoan = loanRepository.save(loan);
-        return enrichLoanDto(updatedLoan);
+        // Copier les informations d'affichage dans l'emprunt
+        loan.setTitreLivre(book.getTitre());
+        loan.setNomUtilisateur(user.getNom());
+        loan.setPrenomUtilisateur(user.getPrenom());
+        return loan;
+    }
+    
+    private static <T> List<T> distinct(List<T> ids) {
+        List<T> distinctIds = ids == null ? List.of() : ids.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        if (distinctIds.isEmpty()) {
+            throw new IllegalArgumentException("La liste est vide");
+        }
+        if (distinctIds.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Trop d'éléments dans la requête (max " + MAX_BATCH_SIZE + "): " + distinctIds.size());
+        }
+        return distinctIds;
+    }
+    
+    private static LoanBatchResultDto batchResult(List<LoanBatchItemDto> items) {
+        int succeeded = (int) items.stream().filter(item -> item.getStatus() < 300).count();
+        return new LoanBatchResultDto(items, succeeded, items.size() - succeeded);
+    }
+    
+    private void releaseBook(Long bookId, String reservationToken) {
+        try {
+            bookServiceClient.releaseBook(bookId, reservationToken);
+        } catch (FeignException.Conflict e) {
+            // Le livre est déjà disponible ou réservé par un autre emprunt : rien à faire
+        } catch (Exception e) {
+            // Libération après un emprunt qui n'a pas abouti : l'échec est signalé sans masquer l'erreur d'origine
+            log.warn("Erreur lors de la mise à jour de la disponibilité du livre {} : {}", bookId, e.getMessage());
+        }
     }
     
     // Enrichir le DTO avec les informations du livre et de l'utilisateur
     private LoanDto enrichLoanDto(Loan loan) {
-        LoanDto loanDto = new LoanDto();
-        BeanUtils.copyProperties(loan, loanDto);
+        return enrichLoanDtos(List.of(loan)).get(0);
+    }
+    
+    // Enrichir un lot d'emprunts. Les emprunts portant déjà leurs copies (titre, nom, prénom) sont
+    // renvoyés tels quels ; seuls les anciens emprunts sans copie passent par un appel groupé au service
+    // des livres et une requête sur les utilisateurs, puis jointure en mémoire
+    private List<LoanDto> enrichLoanDtos(List<Loan> loans) {
+        if (loans.isEmpty()) {
+            return List.of();
+        }
+        
+        List<Loan> withoutSnapshot = loans.stream()
+                .filter(loan -> !hasSnapshot(loan))
+                .collect(Collectors.toList());
+        if (withoutSnapshot.isEmpty()) {
+            return loans.stream()
+                    .map(loan -> toLoanDto(loan, null, null))
+                    .collect(Collectors.toList());
+        }
+        
+        Set<Long> bookIds = withoutSnapshot.stream()
+                .map(Loan::getBookId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<String> userIds = withoutSnapshot.stream()
+                .map(Loan::getUserId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
         
+        // Livres et utilisateurs sont chargés en parallèle
+        Instant deadline = remoteCalls.deadline();
+        CompletableFuture<Map<Long, BookDto>> bookLookup = remoteCalls.submit(() -> bookCache.getBooks(bookIds), deadline);
+        CompletableFuture<List<User>> userLookup = remoteCalls.submit(() -> userRepository.findAllById(userIds), deadline);
+        
+        Map<Long, BookDto> books = new HashMap<>();
+        boolean booksUnavailable = false;
         try {
-            // Récupérer les informations du livre
-            BookDto book = bookServiceClient.getBookById(loan.getBookId());
-            loanDto.setTitreLivre(book.getTitre());
-            
-            // Récupérer les informations de l'utilisateur
-            Optional<User> user = userRepository.findById(loan.getUserId());
-            if (user.isPresent()) {
-                loanDto.setNomUtilisateur(user.get().getNom());
-                loanDto.setPrenomUtilisateur(user.get().getPrenom());
-            }
+            books.putAll(remoteCalls.await(bookLookup, deadline));
         } catch (Exception e) {
-            // En cas d'erreur, on continue avec les informations de base
-            System.err.println("Erreur lors de l'enrichissement des données d'emprunt: " + e.getMessage());
+            // En cas d'erreur, on continue avec les informations de base, en signalant la réponse comme dégradée
+            log.warn("Enrichissement des emprunts sans les livres : {}", e.getMessage());
+            booksUnavailable = true;
         }
         
+        Map<String, User> users = remoteCalls.await(userLookup, deadline).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        
+        List<LoanDto> dtos = new ArrayList<>(loans.size());
+        for (Loan loan : loans) {
+            if (hasSnapshot(loan)) {
+                dtos.add(toLoanDto(loan, null, null));
+                continue;
+            }
+            LoanDto dto = toLoanDto(loan, books.get(loan.getBookId()), users.get(loan.getUserId()));
+            dto.setDegraded(dto.isDegraded() || booksUnavailable);
+            dtos.add(dto);
+        }
+        return dtos;
+    }
+    
+    static boolean hasSnapshot(Loan loan) {
+        return loan.getTitreLivre() != null && loan.getNomUtilisateur() != null;
+    }
+    
+    private LoanDto toLoanDto(Loan loan, BookDto book, User user) {
+        LoanDto loanDto = new LoanDto();
+        BeanUtils.copyProperties(loan, loanDto);
+        if (book != null) {
+            loanDto.setTitreLivre(book.getTitre());
+            loanDto.setDegraded(book.isDegraded());
+        }
+        if (user != null) {
+            loanDto.setNomUtilisateur(user.getNom());
+            loanDto.setPrenomUtilisateur(user.getPrenom());
+        }
         return loanDto;
     }
 }
\ No newline at end of file
@@ -1,14 +1,23 @@
 package com.user.user_service.service;
 
 import com.user.user_service.dto.UserDto;
+import com.user.user_service.dto.UserPageDto;
+import com.user.user_service.event.UserRenamedEvent;
 import com.user.user_service.model.User;
 import com.user.user_service.repository.UserRepository;
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 import java.util.Optional;
 import java.util.NoSuchElementException;
@@ -16,15 +25,47 @@ import java.util.NoSuchElementException;
 @Service
 public class UserService {
 
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 500;
+
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     public List<UserDto> getAllUsers() {
         return userRepository.findAll().stream()
                 .map(this::convertToDto)
                 .collect(Collectors.toList());
     }
 
+    // Pagination par curseur sur l'ObjectId (_id > curseur, tri sur _id), sans skip
+    public UserPageDto getUsersPage(String cursor, Integer size) {
+        int pageSize = size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        Criteria criteria = new Criteria();
+        if (cursor != null && !cursor.isBlank()) {
+            criteria = Criteria.where("_id").gt(LoanService.decodeCursor(cursor));
+        }
+        // On lit un document de plus pour savoir s'il existe une page suivante
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .limit(pageSize + 1);
+        List<User> users = mongoTemplate.find(query, User.class);
+        boolean hasNext = users.size() > pageSize;
+        List<UserDto> content = users.stream()
+                .limit(pageSize)
+                .map(this::convertToDto)
+                .collect(Collectors.toList());
+
+        String nextCursor = hasNext ? content.get(content.size() - 1).getId() : null;
+        return new UserPageDto(content, nextCursor, pageSize);
+    }
+
     public UserDto getUserById(String id) {
         Optional<User> user = userRepository.findById(id);
         if (user.isPresent()) {
@@ -44,15 +85,25 @@ public class UserService {
         Optional<User> existingUser = userRepository.findById(id);
         if (existingUser.isPresent()) {
             User user = existingUser.get();
+            String previousNom = user.getNom();
+            String previousPrenom = user.getPrenom();
             // Préserver la date d'inscription originale
             LocalDateTime originalDate = user.getDateInscription();
 
             // Mettre à jour les propriétés
-            BeanUtils.copyProperties(userDto, user);
+            BeanUtils.copyProperties(userDto, user, ActiveLoanCounter.FIELD);
             user.setId(id); // Assurer que l'ID reste le même
             user.setDateInscription(originalDate); // Restaurer la date d'inscription originale
 
-            User updatedUser = userRepository.save(user);
+            // Mise à jour ciblée : le compteur d'emprunts, modifié en parallèle par les emprunts et retours, n'est pas réécrit
+            mongoTemplate.updateFirst(Query.query(Criteria.where("_id").is(id)),
+                    new Update().set("nom", user.getNom()).set("prenom", user.getPrenom()).set("email", user.getEmail()),
+                    User.class);
+            User updatedUser = user;
+            // Les emprunts gardent une copie du nom : elle est mise à jour en arrière-plan
+            if (!Objects.equals(previousNom, updatedUser.getNom()) || !Objects.equals(previousPrenom, updatedUser.getPrenom())) {
+                eventPublisher.publishEvent(new UserRenamedEvent(id, updatedUser.getNom(), updatedUser.getPrenom()));
+            }
             return convertToDto(updatedUser);
         } else {
             throw new NoSuchElementException("Utilisateur non trouvé avec l'id: " + id);
@@ -75,7 +126,7 @@ public class UserService {
 
     private User convertToEntity(UserDto userDto) {
         User user = new User();
-        BeanUtils.copyProperties(userDto, user);
+        BeanUtils.copyProperties(userDto, user, ActiveLoanCounter.FIELD);
         return user;
     }
 }
\ No newline at end of file
@@ -0,0 +1,199 @@
+package com.user.user_service.web;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+// Requêtes POST rejouées avec le même en-tête Idempotency-Key (nouvelle tentative du client ou de la passerelle
+// après une expiration) : la première réponse est enregistrée dans MongoDB (collection idempotency_keys) et renvoyée
+// telle quelle, sans refaire le traitement, quelle que soit l'instance qui reçoit la tentative.
+// La clé est réservée avant le traitement par l'insertion de son document (unicité de _id) : une requête reçue
+// pendant que la première est en cours attend sa réponse au lieu de la relancer. Les documents sont supprimés
+// par l'index TTL sur "expireLe" (créé par MongoIndexProvisioner).
+@Component
+public class IdempotencyStore {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    public static final String COLLECTION = "idempotency_keys";
+    public static final String EXPIRES_AT = "expireLe";
+    static final int MAX_KEY_LENGTH = 255;
+
+    private static final String FINGERPRINT = "empreinte";
+    private static final String TOKEN = "jeton";
+    private static final String PROCESSING_UNTIL = "enCoursJusqua";
+    private static final String RESPONSE = "reponse";
+    private static final long POLL_INTERVAL_MS = 50;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${idempotency.ttl:1h}")
+    private Duration ttl;
+
+    // Attente maximale d'une requête en cours avec la même clé
+    @Value("${idempotency.wait-timeout:10s}")
+    private Duration waitTimeout;
+
+    // Au-delà, une requête encore en cours est considérée abandonnée (instance arrêtée) : la clé peut être reprise
+    @Value("${idempotency.processing-timeout:1m}")
+    private Duration processingTimeout;
+
+    // Exécute l'action une seule fois par clé (dans le périmètre scope, par exemple "POST /api/loans").
+    // Sans clé, l'action est exécutée normalement. Une clé réutilisée pour une autre requête est refusée
+    // (IllegalArgumentException) ; une requête encore en cours après wait-timeout donne une IllegalStateException.
+    public <T> ResponseEntity<T> execute(String scope, String key, Object request, Supplier<ResponseEntity<T>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Clé d'idempotence trop longue (max " + MAX_KEY_LENGTH + " caractères)");
+        }
+
+        String id = scope + " " + key;
+        String fingerprint = fingerprint(request);
+        Instant deadline = Instant.now().plus(waitTimeout);
+        while (true) {
+            String token = claim(id, fingerprint);
+            if (token != null) {
+                return run(id, token, action);
+            }
+            Document existing = mongoTemplate.findById(id, Document.class, COLLECTION);
+            if (existing == null || !existing.getDate(EXPIRES_AT).toInstant().isAfter(Instant.now())) {
+                // Clé libérée ou expirée entre-temps : nouvelle tentative de réservation
+                continue;
+            }
+            if (!fingerprint.equals(existing.getString(FINGERPRINT))) {
+                throw new IllegalArgumentException("Clé d'idempotence déjà utilisée pour une autre requête");
+            }
+            if (existing.get(RESPONSE) != null) {
+                return replay(existing.get(RESPONSE, Document.class));
+            }
+            if (Instant.now().isAfter(deadline)) {
+                throw new IllegalStateException("Une requête avec la même clé d'idempotence est encore en cours");
+            }
+            pause();
+        }
+    }
+
+    // Réserve la clé : insère son document, ou reprend une clé expirée ou abandonnée en cours de traitement.
+    // Renvoie le jeton de cette réservation, ou null si la clé est tenue ailleurs (l'upsert tente alors d'insérer
+    // un second document avec le même _id et échoue sur l'unicité de _id)
+    private String claim(String id, String fingerprint) {
+        Instant now = Instant.now();
+        String token = UUID.randomUUID().toString();
+        Query query = Query.query(Criteria.where("_id").is(id).orOperator(
+                Criteria.where(EXPIRES_AT).lte(Date.from(now)),
+                Criteria.where(RESPONSE).exists(false).and(PROCESSING_UNTIL).lte(Date.from(now))));
+        Update update = new Update()
+                .set(FINGERPRINT, fingerprint)
+                .set(TOKEN, token)
+                .set(PROCESSING_UNTIL, Date.from(now.plus(processingTimeout)))
+                .set(EXPIRES_AT, Date.from(now.plus(ttl)))
+                .unset(RESPONSE);
+        try {
+            mongoTemplate.upsert(query, update, COLLECTION);
+            return token;
+        } catch (DuplicateKeyException e) {
+            return null;
+        }
+    }
+
+    private <T> ResponseEntity<T> run(String id, String token, Supplier<ResponseEntity<T>> action) {
+        Query mine = Query.query(Criteria.where("_id").is(id).and(TOKEN).is(token));
+        ResponseEntity<T> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            // Rien n'est gardé : la prochaine tentative, ou une requête en attente, refait le traitement
+            mongoTemplate.remove(mine, COLLECTION);
+            throw e;
+        }
+        if (response.getStatusCode().is5xxServerError()) {
+            // Erreur passagère (service indisponible, échéance dépassée) : pas de rejeu pour les tentatives suivantes
+            mongoTemplate.remove(mine, COLLECTION);
+        } else {
+            mongoTemplate.updateFirst(mine, Update.update(RESPONSE, toDocument(response)), COLLECTION);
+        }
+        return response;
+    }
+
+    private Document toDocument(ResponseEntity<?> response) {
+        Object body = response.getBody();
+        return new Document("statut", response.getStatusCode().value())
+                .append("entetes", new Document(response.getHeaders()))
+                .append("corps", body == null ? null : write(body))
+                .append("type", body == null ? null : body.getClass().getName());
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> ResponseEntity<T> replay(Document response) {
+        HttpHeaders headers = new HttpHeaders();
+        response.get("entetes", Document.class).forEach((name, values) -> headers.addAll(name, (List<String>) values));
+        return ResponseEntity.status(response.getInteger("statut"))
+                .headers(headers)
+                .header(REPLAYED_HEADER, "true")
+                .body((T) read(response.getString("corps"), response.getString("type")));
+    }
+
+    // Empreinte de la requête : une nouvelle tentative doit avoir le même corps que la première
+    private String fingerprint(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(write(request).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Requête non sérialisable pour l'idempotence", e);
+        }
+    }
+
+    private Object read(String json, String type) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, Class.forName(type));
+        } catch (JsonProcessingException | ClassNotFoundException e) {
+            throw new IllegalStateException("Réponse enregistrée illisible pour la clé d'idempotence", e);
+        }
+    }
+
+    private static void pause() {
+        try {
+            Thread.sleep(POLL_INTERVAL_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Attente de la requête avec la même clé d'idempotence interrompue");
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.user.user_service.client;
+
+import com.user.user_service.dto.BookBatchDto;
+import com.user.user_service.dto.BookDto;
+import feign.FeignException;
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class BookCacheTests {
+
+	@Mock
+	private BookServiceClient bookServiceClient;
+
+	private BookCache bookCache;
+
+	@BeforeEach
+	void setUp() {
+		bookCache = new BookCache();
+		ReflectionTestUtils.setField(bookCache, "bookServiceClient", bookServiceClient);
+		ReflectionTestUtils.setField(bookCache, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(bookCache, "maximumSize", 100L);
+		ReflectionTestUtils.setField(bookCache, "ttl", Duration.ofMinutes(10));
+		ReflectionTestUtils.setField(bookCache, "negativeTtl", Duration.ofSeconds(30));
+		ReflectionTestUtils.setField(bookCache, "degradedTtl", Duration.ofSeconds(5));
+		ReflectionTestUtils.setField(bookCache, "staleBooks", staleBooks());
+		bookCache.init();
+	}
+
+	@Test
+	void concurrentMissesForTheSameBookMakeOneRemoteCall() throws Exception {
+		when(bookServiceClient.getBookById(1L)).thenAnswer(invocation -> {
+			TimeUnit.MILLISECONDS.sleep(50);
+			return book(1L);
+		});
+
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(16);
+		try {
+			List<Future<BookDto>> futures = new ArrayList<>();
+			for (int i = 0; i < 16; i++) {
+				futures.add(executor.submit(() -> {
+					start.await();
+					return bookCache.getBook(1L);
+				}));
+			}
+			start.countDown();
+			for (Future<BookDto> future : futures) {
+				assertEquals("Livre 1", future.get().getTitre());
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		verify(bookServiceClient, times(1)).getBookById(1L);
+	}
+
+	@Test
+	void notFoundIsCachedAndInvalidateForcesReload() {
+		when(bookServiceClient.getBookById(2L)).thenThrow(notFound());
+
+		assertThrows(NoSuchElementException.class, () -> bookCache.getBook(2L));
+		assertThrows(NoSuchElementException.class, () -> bookCache.getBook(2L));
+		verify(bookServiceClient, times(1)).getBookById(2L);
+
+		bookCache.invalidate(2L);
+		assertThrows(NoSuchElementException.class, () -> bookCache.getBook(2L));
+		verify(bookServiceClient, times(2)).getBookById(2L);
+	}
+
+	@Test
+	void getBooksOnlyFetchesMissingIds() {
+		when(bookServiceClient.getBookById(1L)).thenReturn(book(1L));
+		when(bookServiceClient.getBooksBatch(any())).thenReturn(new BookBatchDto(List.of(book(2L)), List.of(3L), false));
+
+		bookCache.getBook(1L);
+		Map<Long, BookDto> books = bookCache.getBooks(List.of(1L, 2L, 3L));
+
+		assertEquals(2, books.size());
+		verify(bookServiceClient).getBooksBatch(argThat(ids -> Set.copyOf(ids).equals(Set.of(2L, 3L))));
+	}
+
+	@Test
+	void largeLookupsAreSplitIntoOneClientCallPerBatch() {
+		when(bookServiceClient.getBooksBatch(any())).thenAnswer(invocation -> {
+			List<Long> ids = invocation.getArgument(0);
+			return new BookBatchDto(new ArrayList<>(), new ArrayList<>(ids), false);
+		});
+		List<Long> ids = new ArrayList<>();
+		for (long id = 1; id <= 450; id++) {
+			ids.add(id);
+		}
+
+		bookCache.getBooks(ids);
+
+		// Trois appels distincts au client : chacun a son disjoncteur et son limiteur de temps
+		verify(bookServiceClient, times(3)).getBooksBatch(argThat(batch -> batch.size() <= BookCache.BATCH_SIZE));
+	}
+
+	private static StaleBookStore staleBooks() {
+		StaleBookStore staleBooks = new StaleBookStore();
+		ReflectionTestUtils.setField(staleBooks, "maximumSize", 1_000L);
+		staleBooks.init();
+		return staleBooks;
+	}
+
+	private static BookDto book(Long id) {
+		BookDto book = new BookDto();
+		book.setId(id);
+		book.setTitre("Livre " + id);
+		return book;
+	}
+
+	private static FeignException notFound() {
+		Request request = Request.create(Request.HttpMethod.GET, "/api/books/2", Map.of(), null,
+				StandardCharsets.UTF_8, null);
+		Response response = Response.builder()
+				.status(404)
+				.reason("Not Found")
+				.request(request)
+				.headers(Map.of())
+				.build();
+		return FeignException.errorStatus("BookServiceClient#getBookById(Long)", response);
+	}
+}
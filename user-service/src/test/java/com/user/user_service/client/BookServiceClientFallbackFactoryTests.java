@@ -0,0 +1,112 @@
+package com.user.user_service.client;
+
+import com.user.user_service.dto.BookBatchDto;
+import com.user.user_service.dto.BookDto;
+import com.user.user_service.dto.BookReleaseDto;
+import feign.FeignException;
+import feign.Request;
+import feign.Response;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookServiceClientFallbackFactoryTests {
+
+	private StaleBookStore staleBooks;
+	private SimpleMeterRegistry meterRegistry;
+	private BookServiceClientFallbackFactory fallbackFactory;
+
+	@BeforeEach
+	void setUp() {
+		staleBooks = new StaleBookStore();
+		ReflectionTestUtils.setField(staleBooks, "maximumSize", 100L);
+		staleBooks.init();
+		meterRegistry = new SimpleMeterRegistry();
+		fallbackFactory = new BookServiceClientFallbackFactory();
+		ReflectionTestUtils.setField(fallbackFactory, "staleBooks", staleBooks);
+		ReflectionTestUtils.setField(fallbackFactory, "meterRegistry", meterRegistry);
+	}
+
+	@Test
+	void readsAreServedFromTheLastKnownCopyAndFlaggedDegraded() {
+		staleBooks.put(book(1L));
+		BookServiceClient fallback = fallbackFactory.create(circuitOpen());
+
+		BookDto book = fallback.getBookById(1L);
+		BookBatchDto batch = fallback.getBooksBatch(List.of(1L, 2L));
+
+		assertEquals("Livre 1", book.getTitre());
+		assertTrue(book.isDegraded());
+		assertTrue(batch.isDegraded());
+		assertEquals(1, batch.getBooks().size());
+		assertTrue(batch.getMissingIds().isEmpty());
+		assertEquals(1.0, meterRegistry.counter("books.client.fallback", "endpoint", "getBookById", "result", "stale").count());
+		assertEquals(1.0, meterRegistry.counter("books.client.fallback", "endpoint", "getBooksBatch", "result", "stale").count());
+	}
+
+	@Test
+	void unknownBooksAndWritesAreReportedUnavailable() {
+		BookServiceClient fallback = fallbackFactory.create(circuitOpen());
+
+		assertThrows(BookServiceUnavailableException.class, () -> fallback.getBookById(1L));
+		assertThrows(BookServiceUnavailableException.class, () -> fallback.reserveBook(1L, "reservation"));
+		assertThrows(BookServiceUnavailableException.class, () -> fallback.releaseBooks(List.of(new BookReleaseDto(1L, "reservation"))));
+	}
+
+	@Test
+	void clientErrorsArePassedThrough() {
+		staleBooks.put(book(2L));
+		FeignException notFound = error(404);
+
+		BookServiceClient fallback = fallbackFactory.create(notFound);
+
+		assertSame(notFound, assertThrows(FeignException.class, () -> fallback.getBookById(2L)));
+		assertSame(notFound, assertThrows(FeignException.class, () -> fallback.reserveBook(2L, "reservation")));
+	}
+
+	@Test
+	void degradedCopiesAreNotStoredAgain() {
+		BookDto degraded = book(3L);
+		degraded.setDegraded(true);
+
+		staleBooks.put(degraded);
+
+		assertFalse(staleBooks.get(3L).isPresent());
+	}
+
+	private static CallNotPermittedException circuitOpen() {
+		return CallNotPermittedException.createCallNotPermittedException(CircuitBreaker.ofDefaults("BookServiceClientgetBookByIdLong"));
+	}
+
+	private static BookDto book(Long id) {
+		BookDto book = new BookDto();
+		book.setId(id);
+		book.setTitre("Livre " + id);
+		return book;
+	}
+
+	private static FeignException error(int status) {
+		Request request = Request.create(Request.HttpMethod.GET, "/api/books/2", Map.of(), null,
+				StandardCharsets.UTF_8, null);
+		Response response = Response.builder()
+				.status(status)
+				.reason("Error")
+				.request(request)
+				.headers(Map.of())
+				.build();
+		return FeignException.errorStatus("BookServiceClient#getBookById(Long)", response);
+	}
+}
@@ -0,0 +1,113 @@
+package com.user.user_service.repository;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.user.user_service.config.MongoIndexProvisioner;
+import com.user.user_service.model.Loan;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntConsumer;
+
+// Temps des requêtes de LoanRepository sur une collection de plusieurs millions d'emprunts,
+// sans index puis avec les index déclarés sur Loan. Nécessite un MongoDB local ; la base est supprimée à la fin.
+// Lancement : mvn test -Dtest=LoanRepositoryIndexBenchmark -Dbenchmark=true [-Dbenchmark.loans=2000000]
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class LoanRepositoryIndexBenchmark {
+
+	private static final String URI = System.getProperty("benchmark.mongodb.uri", "mongodb://localhost:27017");
+	private static final String DATABASE = "userdb_benchmark";
+	private static final int LOANS = Integer.getInteger("benchmark.loans", 2_000_000);
+	private static final int USERS = 100_000;
+	private static final int BOOKS = 200_000;
+	private static final int QUERIES = 50;
+
+	@Test
+	void compareWithoutAndWithIndexes() {
+		try (MongoClient client = MongoClients.create(URI)) {
+			MongoTemplate mongoTemplate = new MongoTemplate(client, DATABASE);
+			try {
+				MongoCollection<Document> loans = mongoTemplate.getCollection("loans");
+				loans.drop();
+				seed(loans);
+				LoanRepository repository = new MongoRepositoryFactory(mongoTemplate).getRepository(LoanRepository.class);
+
+				System.out.printf("%,d emprunts, sans index :%n", LOANS);
+				run(repository, loans);
+
+				MongoIndexProvisioner.ensureIndexes(mongoTemplate, Loan.class);
+				System.out.printf("%,d emprunts, avec les index de Loan :%n", LOANS);
+				run(repository, loans);
+			} finally {
+				client.getDatabase(DATABASE).drop();
+			}
+		}
+	}
+
+	private void seed(MongoCollection<Document> loans) {
+		Random random = new Random(42);
+		LocalDate today = LocalDate.now();
+		List<Document> batch = new ArrayList<>(10_000);
+		for (int i = 0; i < LOANS; i++) {
+			LocalDate emprunt = today.minusDays(random.nextInt(3 * 365));
+			// 90 % de prêts rendus, 8 % en cours, 2 % en retard
+			int draw = random.nextInt(100);
+			String statut = draw < 90 ? "RETOURNE" : draw < 98 ? "EMPRUNTE" : "EN_RETARD";
+			batch.add(new Document("userId", "user-" + random.nextInt(USERS))
+					.append("bookId", (long) random.nextInt(BOOKS))
+					.append("dateEmprunt", toDate(emprunt))
+					.append("dateRetourPrevue", toDate(emprunt.plusDays(21)))
+					.append("statut", statut));
+			if (batch.size() == 10_000) {
+				loans.insertMany(batch);
+				batch.clear();
+			}
+		}
+		if (!batch.isEmpty()) {
+			loans.insertMany(batch);
+		}
+	}
+
+	private void run(LoanRepository repository, MongoCollection<Document> loans) {
+		Random random = new Random(7);
+		measure("findByUserId", i -> repository.findByUserId("user-" + random.nextInt(USERS)));
+		measure("findByBookIdAndStatut", i -> repository.findByBookIdAndStatut(
+				(long) random.nextInt(BOOKS), Loan.LoanStatus.EMPRUNTE));
+		measure("findByStatut(EN_RETARD)", i -> repository.findByStatut(Loan.LoanStatus.EN_RETARD));
+
+		System.out.printf("  plans : userId %s, bookId+statut %s, statut %s%n",
+				stage(loans, new Document("userId", "user-1")),
+				stage(loans, new Document("bookId", 1L).append("statut", "EMPRUNTE")),
+				stage(loans, new Document("statut", "EN_RETARD")));
+	}
+
+	private void measure(String name, IntConsumer query) {
+		query.accept(-1);
+		long start = System.nanoTime();
+		for (int i = 0; i < QUERIES; i++) {
+			query.accept(i);
+		}
+		System.out.printf("  %-26s %8.2f ms/requête%n", name, (System.nanoTime() - start) / 1e6 / QUERIES);
+	}
+
+	// Étape racine du plan gagnant et, le cas échéant, celle qui l'alimente (ex. FETCH <- IXSCAN)
+	private static String stage(MongoCollection<Document> loans, Document filter) {
+		Document plan = loans.find(filter).explain().get("queryPlanner", Document.class).get("winningPlan", Document.class);
+		Document input = plan.get("inputStage", Document.class);
+		return input == null ? plan.getString("stage") : plan.getString("stage") + "<-" + input.getString("stage");
+	}
+
+	private static Date toDate(LocalDate date) {
+		return Date.from(date.atStartOfDay(ZoneOffset.UTC).toInstant());
+	}
+}
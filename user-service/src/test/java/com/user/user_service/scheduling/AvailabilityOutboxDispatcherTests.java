@@ -0,0 +1,111 @@
+package com.user.user_service.scheduling;
+
+import com.user.user_service.client.BookCache;
+import com.user.user_service.client.BookServiceClient;
+import com.user.user_service.client.BookServiceUnavailableException;
+import com.user.user_service.dto.BookReleaseDto;
+import com.user.user_service.model.Loan;
+import com.user.user_service.model.PendingRelease;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AvailabilityOutboxDispatcherTests {
+
+	private static final Instant NOW = Instant.parse("2025-03-14T10:00:00Z");
+
+	@Mock
+	private MongoTemplate mongoTemplate;
+
+	@Mock
+	private BookServiceClient bookServiceClient;
+
+	@Mock
+	private BookCache bookCache;
+
+	@Mock
+	private BulkOperations bulk;
+
+	@InjectMocks
+	private AvailabilityOutboxDispatcher dispatcher;
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(dispatcher, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(dispatcher, "batchSize", 100);
+		ReflectionTestUtils.setField(dispatcher, "initialBackoff", Duration.ofSeconds(1));
+		ReflectionTestUtils.setField(dispatcher, "maxBackoff", Duration.ofMinutes(5));
+		dispatcher.init();
+	}
+
+	@Test
+	void pendingReleasesAreSentInOneCallThenCleared() {
+		Loan legacy = loan("b", 2L, 0);
+		legacy.setReservationLivre(null);
+		when(mongoTemplate.find(any(Query.class), eq(Loan.class))).thenReturn(List.of(loan("a", 1L, 0), legacy));
+
+		assertEquals(2, dispatcher.dispatchBatch(NOW));
+
+		// Chaque libération porte le jeton de la réservation de son emprunt, aucun pour un emprunt antérieur au jeton
+		verify(bookServiceClient).releaseBooks(List.of(new BookReleaseDto(1L, "reservation-a"), new BookReleaseDto(2L, null)));
+		ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+		verify(mongoTemplate).updateMulti(any(Query.class), update.capture(), eq(Loan.class));
+		assertTrue(((Document) update.getValue().getUpdateObject().get("$unset")).containsKey(Loan.PENDING_RELEASE));
+		verify(bookCache).invalidate(1L);
+		verify(bookCache).invalidate(2L);
+	}
+
+	@Test
+	void failedReleasesAreRetriedLaterWithBackoff() {
+		when(mongoTemplate.find(any(Query.class), eq(Loan.class))).thenReturn(List.of(loan("a", 1L, 3)));
+		when(bookServiceClient.releaseBooks(any())).thenThrow(new BookServiceUnavailableException("indisponible", null));
+		when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Loan.class)).thenReturn(bulk);
+
+		assertEquals(0, dispatcher.dispatchBatch(NOW));
+
+		ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+		verify(bulk).updateOne(any(Query.class), update.capture());
+		verify(bulk).execute();
+		Document set = (Document) update.getValue().getUpdateObject().get("$set");
+		assertEquals(4, set.get(Loan.PENDING_RELEASE + ".tentatives"));
+		assertEquals(NOW.plusSeconds(8), set.get(Loan.PENDING_RELEASE + ".prochainEssai"));
+		verify(mongoTemplate, never()).updateMulti(any(Query.class), any(Update.class), eq(Loan.class));
+		assertEquals(Duration.ofMinutes(5), dispatcher.backoff(30));
+	}
+
+	private static Loan loan(String id, Long bookId, int attempts) {
+		Loan loan = new Loan();
+		loan.setId(id);
+		loan.setBookId(bookId);
+		loan.setReservationLivre("reservation-" + id);
+		loan.setStatut(Loan.LoanStatus.RETOURNE);
+		PendingRelease pending = PendingRelease.now();
+		pending.setTentatives(attempts);
+		loan.setLiberationEnAttente(pending);
+		return loan;
+	}
+}
@@ -0,0 +1,103 @@
+package com.user.user_service.service;
+
+import com.user.user_service.model.User;
+import com.user.user_service.repository.UserRepository;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ActiveLoanCounterTests {
+
+	@Mock
+	private MongoTemplate mongoTemplate;
+
+	@Mock
+	private UserRepository userRepository;
+
+	@InjectMocks
+	private ActiveLoanCounter activeLoans;
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(activeLoans, "maxActiveLoans", 5);
+	}
+
+	@Test
+	void checkAndIncrementAreOneConditionalUpdate() {
+		User user = LoanServiceEnrichmentTests.user(1);
+		when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class), eq(User.class)))
+				.thenReturn(user);
+
+		Optional<User> acquired = activeLoans.acquire("user-1", 2);
+
+		ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+		ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+		verify(mongoTemplate).findAndModify(query.capture(), update.capture(), any(FindAndModifyOptions.class), eq(User.class));
+		assertTrue(acquired.isPresent());
+		assertTrue(query.getValue().getQueryObject().toJson().contains("\"$lte\": 3"));
+		assertEquals(2, ((Document) update.getValue().getUpdateObject().get("$inc")).get(ActiveLoanCounter.FIELD));
+		// Compteur daté : ActiveLoanReconciler ne le corrige pas pendant l'insertion du prêt
+		assertTrue(((Document) update.getValue().getUpdateObject().get("$set")).containsKey(ActiveLoanCounter.TOUCHED));
+		verify(userRepository, never()).existsById(any());
+	}
+
+	@Test
+	void userAtTheLimitIsAConflictAndUnknownUserIsEmpty() {
+		when(userRepository.existsById("user-1")).thenReturn(true);
+		when(userRepository.existsById("inconnu")).thenReturn(false);
+
+		assertThrows(IllegalStateException.class, () -> activeLoans.acquire("user-1", 1));
+		assertFalse(activeLoans.acquire("inconnu", 1).isPresent());
+		assertThrows(IllegalStateException.class, () -> activeLoans.acquire("user-1", 6));
+	}
+
+	@Test
+	void batchGetsTheSlotsLeftUnderTheLimit() {
+		User before = LoanServiceEnrichmentTests.user(1);
+		before.setEmpruntsActifs(3);
+		when(mongoTemplate.findAndModify(any(Query.class), any(AggregationUpdate.class), any(FindAndModifyOptions.class),
+				eq(User.class))).thenReturn(before);
+
+		Optional<ActiveLoanCounter.Acquired> acquired = activeLoans.acquireUpTo("user-1", 4);
+
+		assertTrue(acquired.isPresent());
+		assertEquals(2, acquired.get().slots());
+		ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+		verify(mongoTemplate).findAndModify(query.capture(), any(AggregationUpdate.class), any(FindAndModifyOptions.class),
+				eq(User.class));
+		assertTrue(query.getValue().getQueryObject().toJson().contains("\"$lt\": 5"));
+	}
+
+	@Test
+	void batchForAUserAtTheLimitGetsNoSlots() {
+		when(userRepository.findById("user-1")).thenReturn(Optional.of(LoanServiceEnrichmentTests.user(1)));
+		when(userRepository.findById("inconnu")).thenReturn(Optional.empty());
+
+		assertEquals(0, activeLoans.acquireUpTo("user-1", 2).get().slots());
+		assertFalse(activeLoans.acquireUpTo("inconnu", 2).isPresent());
+	}
+}
@@ -0,0 +1,125 @@
+package com.user.user_service.service;
+
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.user.user_service.dto.UserOverdueRateDto;
+import com.user.user_service.model.Loan;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LoanAnalyticsServiceTests {
+
+	private static final LocalDate DAY = LocalDate.of(2025, 3, 14);
+
+	@Mock
+	private MongoTemplate mongoTemplate;
+
+	@InjectMocks
+	private LoanAnalyticsService analyticsService;
+
+	@Test
+	void checkoutsOfTheSameDayAreOneUpsert() {
+		analyticsService.recordCheckouts(List.of(loan(1L, DAY), loan(1L, DAY), loan(2L, DAY)));
+
+		ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+		ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+		verify(mongoTemplate, times(1)).upsert(query.capture(), update.capture(), eq(LoanAnalyticsService.ROLLUP_COLLECTION));
+		assertEquals("2025-03-14", query.getValue().getQueryObject().get("_id"));
+		Document inc = (Document) update.getValue().getUpdateObject().get("$inc");
+		assertEquals(3, ((Number) inc.get("emprunts")).intValue());
+		assertEquals(2L, inc.get("livres.1"));
+		assertEquals(1L, inc.get("livres.2"));
+	}
+
+	@Test
+	void returnsAddDurationAndLateCount() {
+		Loan onTime = loan(1L, DAY.minusDays(10));
+		onTime.setDateRetourPrevue(DAY);
+		onTime.setDateRetourEffective(DAY);
+		Loan late = loan(2L, DAY.minusDays(30));
+		late.setDateRetourPrevue(DAY.minusDays(9));
+		late.setDateRetourEffective(DAY);
+
+		analyticsService.recordReturns(List.of(onTime, late));
+
+		ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+		verify(mongoTemplate).upsert(any(Query.class), update.capture(),
+				eq(LoanAnalyticsService.ROLLUP_COLLECTION));
+		Document inc = (Document) update.getValue().getUpdateObject().get("$inc");
+		assertEquals(2, ((Number) inc.get("retours")).intValue());
+		assertEquals(40L, inc.get("dureeTotaleJours"));
+		assertEquals(1L, inc.get("retoursEnRetard"));
+	}
+
+	@Test
+	void checkoutsAreCountedOncePerUser() {
+		analyticsService.recordCheckouts(List.of(loan(1L, DAY), loan(2L, DAY.minusDays(1))));
+
+		ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+		ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+		verify(mongoTemplate).upsert(query.capture(), update.capture(), eq(LoanAnalyticsService.USER_ROLLUP_COLLECTION));
+		assertEquals("user-1", query.getValue().getQueryObject().get("_id"));
+		Document inc = (Document) update.getValue().getUpdateObject().get("$inc");
+		assertEquals(2L, inc.get("emprunts"));
+	}
+
+	@Test
+	void lateReturnAlreadyCountedAsOverdueIsNotCountedTwice() {
+		Loan swept = loan(1L, DAY.minusDays(30));
+		swept.setDateRetourPrevue(DAY.minusDays(9));
+		swept.setDateRetourEffective(DAY);
+		swept.setRetardCompte(true);
+		Loan notSwept = loan(2L, DAY.minusDays(30));
+		notSwept.setDateRetourPrevue(DAY.minusDays(1));
+		notSwept.setDateRetourEffective(DAY);
+
+		analyticsService.recordReturns(List.of(swept, notSwept));
+
+		ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+		verify(mongoTemplate).upsert(any(Query.class), update.capture(), eq(LoanAnalyticsService.USER_ROLLUP_COLLECTION));
+		Document inc = (Document) update.getValue().getUpdateObject().get("$inc");
+		assertEquals(1L, inc.get("enRetard"));
+	}
+
+	@Test
+	void userWithoutStatsHasNoOverdueRate() {
+		MongoCollection<Document> collection = mock(MongoCollection.class);
+		FindIterable<Document> found = mock(FindIterable.class);
+		when(mongoTemplate.getCollection(LoanAnalyticsService.USER_ROLLUP_COLLECTION)).thenReturn(collection);
+		when(collection.find(any(Bson.class))).thenReturn(found);
+
+		UserOverdueRateDto rate = analyticsService.getOverdueRate("user-1");
+
+		assertEquals(0, rate.getEmprunts());
+		assertEquals(0.0, rate.getTauxRetard());
+	}
+
+	private static Loan loan(Long bookId, LocalDate dateEmprunt) {
+		Loan loan = new Loan();
+		loan.setBookId(bookId);
+		loan.setUserId("user-1");
+		loan.setDateEmprunt(dateEmprunt);
+		return loan;
+	}
+}
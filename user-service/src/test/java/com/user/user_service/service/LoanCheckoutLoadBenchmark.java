@@ -0,0 +1,138 @@
+package com.user.user_service.service;
+
+import com.user.user_service.client.BookServiceClient;
+import com.user.user_service.dto.CreateLoanRequest;
+import com.user.user_service.model.Loan;
+import com.user.user_service.repository.LoanRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+// Débit et latence p99 de createLoan sous charge : appels séquentiels sur 200 threads (modèle actuel de Tomcat),
+// appels en parallèle (256 au plus) sur 200 threads, puis appels en parallèle avec des requêtes sur threads virtuels (Java 21+).
+// Latences simulées : 2 ms pour la recherche de l'utilisateur, 10 ms pour la réservation, 2 ms pour l'insertion.
+// Lancement : mvn test -Dtest=LoanCheckoutLoadBenchmark -Dbenchmark=true [-Dbenchmark.requests=20000]
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@ExtendWith(MockitoExtension.class)
+class LoanCheckoutLoadBenchmark {
+
+	private static final int REQUESTS = Integer.getInteger("benchmark.requests", 20_000);
+	private static final int TOMCAT_THREADS = 200;
+	private static final int REMOTE_CALLS = 256;
+
+	@Mock
+	private LoanRepository loanRepository;
+
+	@Mock
+	private ActiveLoanCounter activeLoans;
+
+	@Mock
+	private BookServiceClient bookServiceClient;
+
+	@Mock
+	private LoanAnalyticsService analyticsService;
+
+	@InjectMocks
+	private LoanService loanService;
+
+	@Test
+	void compareSequentialAndParallelRemoteCalls() throws Exception {
+		ReflectionTestUtils.setField(loanService, "bookCache", LoanServiceEnrichmentTests.bookCache(bookServiceClient));
+		when(activeLoans.acquire(anyString(), anyInt())).thenAnswer(invocation -> {
+			sleep(2);
+			return Optional.of(LoanServiceEnrichmentTests.user(1));
+		});
+		when(bookServiceClient.reserveBook(anyLong(), anyString())).thenAnswer(invocation -> {
+			sleep(10);
+			return LoanServiceEnrichmentTests.book(invocation.getArgument(0));
+		});
+		when(loanRepository.save(any(Loan.class))).thenAnswer(invocation -> {
+			sleep(2);
+			return invocation.getArgument(0);
+		});
+
+		run("séquentiel, 200 threads", false, tomcatPool());
+		run("parallèle, 200 threads", true, tomcatPool());
+		AsyncTaskExecutor virtualThreads = virtualThreads();
+		if (virtualThreads != null) {
+			run("parallèle, threads virtuels", true, virtualThreads);
+		} else {
+			System.out.println("threads virtuels indisponibles sur cette JVM (Java 21+ requis)");
+		}
+	}
+
+	private void run(String label, boolean parallel, AsyncTaskExecutor requests) throws Exception {
+		ReflectionTestUtils.setField(loanService, "remoteCalls", LoanServiceEnrichmentTests.remoteCalls(parallel, REMOTE_CALLS));
+		AtomicLong bookIds = new AtomicLong();
+		long[] latencies = new long[REQUESTS];
+		List<Future<?>> futures = new ArrayList<>(REQUESTS);
+		long start = System.nanoTime();
+		for (int i = 0; i < REQUESTS; i++) {
+			int index = i;
+			long submitted = System.nanoTime();
+			futures.add(requests.submit(() -> {
+				CreateLoanRequest request = new CreateLoanRequest();
+				request.setUserId("user-1");
+				request.setBookId(bookIds.incrementAndGet());
+				request.setDateRetourPrevue(LocalDate.now().plusWeeks(2));
+				loanService.createLoan(request);
+				latencies[index] = System.nanoTime() - submitted;
+			}));
+		}
+		for (Future<?> future : futures) {
+			future.get();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		if (requests instanceof ThreadPoolTaskExecutor pool) {
+			pool.shutdown();
+		}
+
+		Arrays.sort(latencies);
+		System.out.printf("%-28s : %,8.0f requêtes/s, p50 %,7.1f ms, p99 %,7.1f ms%n", label, REQUESTS / seconds,
+				latencies[REQUESTS / 2] / 1e6, latencies[(int) (REQUESTS * 0.99)] / 1e6);
+	}
+
+	private static AsyncTaskExecutor tomcatPool() {
+		ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+		pool.setCorePoolSize(TOMCAT_THREADS);
+		pool.setMaxPoolSize(TOMCAT_THREADS);
+		pool.setThreadNamePrefix("http-nio-");
+		pool.initialize();
+		return pool;
+	}
+
+	private static AsyncTaskExecutor virtualThreads() {
+		try {
+			return new VirtualThreadTaskExecutor("http-virtual-");
+		} catch (UnsupportedOperationException e) {
+			return null;
+		}
+	}
+
+	private static void sleep(long millis) {
+		LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(millis));
+	}
+}
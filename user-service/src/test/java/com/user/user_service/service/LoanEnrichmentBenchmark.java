@@ -0,0 +1,101 @@
+package com.user.user_service.service;
+
+import com.user.user_service.client.BookServiceClient;
+import com.user.user_service.model.Loan;
+import com.user.user_service.repository.LoanRepository;
+import com.user.user_service.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+// Compare l'ancien enrichissement emprunt par emprunt (N+1) à l'enrichissement groupé,
+// avec une latence simulée de 0,5 ms par appel distant ou requête MongoDB.
+// Lancement : mvn test -Dtest=LoanEnrichmentBenchmark -Dbenchmark=true
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@ExtendWith(MockitoExtension.class)
+class LoanEnrichmentBenchmark {
+
+	private static final long LATENCY_NANOS = TimeUnit.MICROSECONDS.toNanos(500);
+
+	@Mock
+	private LoanRepository loanRepository;
+
+	@Mock
+	private UserRepository userRepository;
+
+	@Mock
+	private BookServiceClient bookServiceClient;
+
+	@InjectMocks
+	private LoanService loanService;
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(loanService, "bookCache", LoanServiceEnrichmentTests.bookCache(bookServiceClient));
+		ReflectionTestUtils.setField(loanService, "remoteCalls", LoanServiceEnrichmentTests.remoteCalls(true));
+	}
+
+	@Test
+	void compareWithPerLoanLookups() {
+		List<Loan> loans = LoanServiceEnrichmentTests.loans();
+		AtomicInteger calls = new AtomicInteger();
+
+		when(loanRepository.findAll()).thenReturn(loans);
+		when(bookServiceClient.getBookById(anyLong())).thenAnswer(invocation -> {
+			remoteCall(calls);
+			return LoanServiceEnrichmentTests.book(invocation.getArgument(0));
+		});
+		when(userRepository.findById(anyString())).thenAnswer(invocation -> {
+			remoteCall(calls);
+			String id = invocation.getArgument(0);
+			return Optional.of(LoanServiceEnrichmentTests.user(Integer.parseInt(id.substring("user-".length()))));
+		});
+		when(bookServiceClient.getBooksBatch(anyList())).thenAnswer(invocation -> {
+			remoteCall(calls);
+			return LoanServiceEnrichmentTests.books(invocation.getArgument(0));
+		});
+		when(userRepository.findAllById(any())).thenAnswer(invocation -> {
+			remoteCall(calls);
+			return LoanServiceEnrichmentTests.users();
+		});
+
+		// Ancien algorithme : un appel livre et une requête utilisateur par emprunt
+		long start = System.nanoTime();
+		for (Loan loan : loans) {
+			bookServiceClient.getBookById(loan.getBookId());
+			userRepository.findById(loan.getUserId());
+		}
+		report("emprunt par emprunt", calls.getAndSet(0), start);
+
+		start = System.nanoTime();
+		loanService.getAllLoans();
+		report("enrichissement groupé", calls.getAndSet(0), start);
+	}
+
+	private static void remoteCall(AtomicInteger calls) {
+		calls.incrementAndGet();
+		LockSupport.parkNanos(LATENCY_NANOS);
+	}
+
+	private static void report(String label, int calls, long start) {
+		System.out.printf("%-22s : %,6d appels, %,8.1f ms pour %,d emprunts%n",
+				label, calls, (System.nanoTime() - start) / 1e6, LoanServiceEnrichmentTests.LOANS);
+	}
+}
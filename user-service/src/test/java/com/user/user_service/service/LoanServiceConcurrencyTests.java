@@ -0,0 +1,172 @@
+package com.user.user_service.service;
+
+import com.mongodb.client.result.UpdateResult;
+import com.user.user_service.client.BookServiceClient;
+import com.user.user_service.dto.BatchReturnRequest;
+import com.user.user_service.dto.CreateLoanRequest;
+import com.user.user_service.dto.LoanBatchResultDto;
+import com.user.user_service.model.Loan;
+import com.user.user_service.repository.LoanRepository;
+import feign.FeignException;
+import feign.Request;
+import feign.Response;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LoanServiceConcurrencyTests {
+
+	private static final int CHECKOUTS = 2_000;
+
+	@Mock
+	private LoanRepository loanRepository;
+
+	@Mock
+	private ActiveLoanCounter activeLoans;
+
+	@Mock
+	private BookServiceClient bookServiceClient;
+
+	@Mock
+	private LoanAnalyticsService analyticsService;
+
+	@Mock
+	private MongoTemplate mongoTemplate;
+
+	@InjectMocks
+	private LoanService loanService;
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(loanService, "bookCache", LoanServiceEnrichmentTests.bookCache(bookServiceClient));
+		ReflectionTestUtils.setField(loanService, "remoteCalls", LoanServiceEnrichmentTests.remoteCalls(true));
+	}
+
+	@Test
+	void onlyOneOfManyParallelCheckoutsOfTheSameBookSucceeds() throws Exception {
+		// Le service des livres est simulé par le même compare-and-set que l'UPDATE conditionnel
+		AtomicBoolean disponible = new AtomicBoolean(true);
+		when(activeLoans.acquire("user-1", 1)).thenReturn(Optional.of(LoanServiceEnrichmentTests.user(1)));
+		when(bookServiceClient.reserveBook(eq(42L), anyString())).thenAnswer(invocation -> {
+			if (!disponible.compareAndSet(true, false)) {
+				throw conflict();
+			}
+			return LoanServiceEnrichmentTests.book(42L);
+		});
+		when(loanRepository.save(any(Loan.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+		CountDownLatch start = new CountDownLatch(1);
+		AtomicInteger created = new AtomicInteger();
+		AtomicInteger conflicts = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(64);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < CHECKOUTS; i++) {
+				futures.add(executor.submit(() -> {
+					CreateLoanRequest request = new CreateLoanRequest();
+					request.setUserId("user-1");
+					request.setBookId(42L);
+					request.setDateRetourPrevue(LocalDate.now().plusWeeks(2));
+					start.await();
+					try {
+						loanService.createLoan(request);
+						created.incrementAndGet();
+					} catch (IllegalStateException e) {
+						conflicts.incrementAndGet();
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+
+		assertEquals(1, created.get());
+		assertEquals(CHECKOUTS - 1, conflicts.get());
+		verify(loanRepository, times(1)).save(any(Loan.class));
+		verify(bookServiceClient, never()).getBookById(anyLong());
+		verify(bookServiceClient, never()).releaseBook(anyLong(), any());
+	}
+
+	@Test
+	void batchReturnOnlyReportsLoansItActuallyReturned() {
+		Loan mine = loan("loan-1", 1L);
+		Loan raced = loan("loan-2", 2L);
+		when(loanRepository.findAllById(any())).thenReturn(List.of(mine, raced));
+		// loan-2 est rendu par un retour simple entre la lecture et l'écriture : seul loan-1 est modifié par le lot
+		when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(Loan.class)))
+				.thenReturn(UpdateResult.acknowledged(2, 1L, null));
+		Loan returned = loan("loan-1", 1L);
+		returned.setStatut(Loan.LoanStatus.RETOURNE);
+		when(mongoTemplate.find(any(Query.class), eq(Loan.class))).thenReturn(List.of(returned));
+
+		BatchReturnRequest request = new BatchReturnRequest();
+		request.setLoanIds(List.of("loan-1", "loan-2"));
+		LoanBatchResultDto result = loanService.returnBatch(request);
+
+		assertEquals(1, result.getSucceeded());
+		assertEquals(200, result.getItems().get(0).getStatus());
+		assertEquals(409, result.getItems().get(1).getStatus());
+		verify(activeLoans).release("user-1", 1);
+		verify(analyticsService).recordReturns(List.of(returned));
+	}
+
+	private static Loan loan(String id, Long bookId) {
+		Loan loan = new Loan();
+		loan.setId(id);
+		loan.setUserId("user-1");
+		loan.setBookId(bookId);
+		loan.setDateRetourPrevue(LocalDate.now().plusWeeks(2));
+		loan.setTitreLivre("Livre " + bookId);
+		loan.setNomUtilisateur("Dupont");
+		loan.setPrenomUtilisateur("Jean");
+		return loan;
+	}
+
+	private static FeignException conflict() {
+		Request request = Request.create(Request.HttpMethod.POST, "/api/books/42/reserve", Map.of(), null,
+				StandardCharsets.UTF_8, null);
+		Response response = Response.builder()
+				.status(409)
+				.reason("Conflict")
+				.request(request)
+				.headers(Map.of())
+				.build();
+		return FeignException.errorStatus("BookServiceClient#reserveBook(Long,String)", response);
+	}
+}
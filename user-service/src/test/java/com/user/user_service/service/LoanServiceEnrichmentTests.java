@@ -0,0 +1,175 @@
+package com.user.user_service.service;
+
+import com.user.user_service.client.BookCache;
+import com.user.user_service.client.StaleBookStore;
+import com.user.user_service.client.BookServiceClient;
+import com.user.user_service.client.RemoteCallExecutor;
+import com.user.user_service.dto.BookBatchDto;
+import com.user.user_service.dto.BookDto;
+import com.user.user_service.dto.LoanDto;
+import com.user.user_service.model.Loan;
+import com.user.user_service.model.User;
+import com.user.user_service.repository.LoanRepository;
+import com.user.user_service.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LoanServiceEnrichmentTests {
+
+	static final int LOANS = 5_000;
+	static final int BOOKS = 500;
+	static final int USERS = 200;
+
+	@Mock
+	private LoanRepository loanRepository;
+
+	@Mock
+	private UserRepository userRepository;
+
+	@Mock
+	private BookServiceClient bookServiceClient;
+
+	@InjectMocks
+	private LoanService loanService;
+
+	@BeforeEach
+	void setUp() {
+		ReflectionTestUtils.setField(loanService, "bookCache", bookCache(bookServiceClient));
+		ReflectionTestUtils.setField(loanService, "remoteCalls", remoteCalls(true));
+	}
+
+	@Test
+	void getAllLoansResolvesBooksAndUsersInBulk() {
+		when(loanRepository.findAll()).thenReturn(loans());
+		when(bookServiceClient.getBooksBatch(anyList())).thenAnswer(invocation -> books(invocation.getArgument(0)));
+		when(userRepository.findAllById(any())).thenReturn(users());
+
+		List<LoanDto> result = loanService.getAllLoans();
+
+		assertEquals(LOANS, result.size());
+		assertEquals("Livre 7", result.get(7).getTitreLivre());
+		assertEquals("Nom 7", result.get(7).getNomUtilisateur());
+		// 500 livres distincts découpés en lots de 200 : 3 appels distants au lieu de 5 000
+		verify(bookServiceClient, times(3)).getBooksBatch(anyList());
+		verify(bookServiceClient, never()).getBookById(anyLong());
+		verify(userRepository, times(1)).findAllById(any());
+		verify(userRepository, never()).findById(anyString());
+	}
+
+	@Test
+	void getAllLoansUsesSnapshotsWithoutLookups() {
+		List<Loan> loans = loans();
+		for (Loan loan : loans) {
+			loan.setTitreLivre("Livre " + loan.getBookId());
+			loan.setNomUtilisateur("Nom " + loan.getUserId().substring("user-".length()));
+			loan.setPrenomUtilisateur("Prénom " + loan.getUserId().substring("user-".length()));
+		}
+		when(loanRepository.findAll()).thenReturn(loans);
+
+		List<LoanDto> result = loanService.getAllLoans();
+
+		assertEquals(LOANS, result.size());
+		assertEquals("Livre 7", result.get(7).getTitreLivre());
+		assertEquals("Nom 7", result.get(7).getNomUtilisateur());
+		verify(bookServiceClient, never()).getBooksBatch(anyList());
+		verify(userRepository, never()).findAllById(any());
+	}
+
+	static BookCache bookCache(BookServiceClient client) {
+		BookCache cache = new BookCache();
+		ReflectionTestUtils.setField(cache, "bookServiceClient", client);
+		ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(cache, "maximumSize", 10_000L);
+		ReflectionTestUtils.setField(cache, "ttl", Duration.ofMinutes(10));
+		ReflectionTestUtils.setField(cache, "negativeTtl", Duration.ofSeconds(30));
+		ReflectionTestUtils.setField(cache, "degradedTtl", Duration.ofSeconds(5));
+		ReflectionTestUtils.setField(cache, "staleBooks", staleBooks());
+		ReflectionTestUtils.invokeMethod(cache, "init");
+		return cache;
+	}
+
+	static StaleBookStore staleBooks() {
+		StaleBookStore staleBooks = new StaleBookStore();
+		ReflectionTestUtils.setField(staleBooks, "maximumSize", 10_000L);
+		ReflectionTestUtils.invokeMethod(staleBooks, "init");
+		return staleBooks;
+	}
+
+	static RemoteCallExecutor remoteCalls(boolean parallel) {
+		return remoteCalls(parallel, 64);
+	}
+
+	static RemoteCallExecutor remoteCalls(boolean parallel, int maxConcurrency) {
+		RemoteCallExecutor remoteCalls = new RemoteCallExecutor();
+		ReflectionTestUtils.setField(remoteCalls, "parallel", parallel);
+		ReflectionTestUtils.setField(remoteCalls, "maxConcurrency", maxConcurrency);
+		ReflectionTestUtils.setField(remoteCalls, "deadline", Duration.ofSeconds(3));
+		ReflectionTestUtils.invokeMethod(remoteCalls, "init");
+		return remoteCalls;
+	}
+
+	static List<Loan> loans() {
+		List<Loan> loans = new ArrayList<>();
+		for (int i = 0; i < LOANS; i++) {
+			Loan loan = new Loan();
+			loan.setId("loan-" + i);
+			loan.setBookId((long) (i % BOOKS));
+			loan.setUserId("user-" + (i % USERS));
+			loans.add(loan);
+		}
+		return loans;
+	}
+
+	static List<User> users() {
+		List<User> users = new ArrayList<>();
+		for (int i = 0; i < USERS; i++) {
+			users.add(user(i));
+		}
+		return users;
+	}
+
+	static User user(int i) {
+		User user = new User();
+		user.setId("user-" + i);
+		user.setNom("Nom " + i);
+		user.setPrenom("Prénom " + i);
+		return user;
+	}
+
+	static BookBatchDto books(List<Long> ids) {
+		BookBatchDto batch = new BookBatchDto();
+		for (Long id : ids) {
+			batch.getBooks().add(book(id));
+		}
+		return batch;
+	}
+
+	static BookDto book(Long id) {
+		BookDto book = new BookDto();
+		book.setId(id);
+		book.setTitre("Livre " + id);
+		book.setDisponible(true);
+		return book;
+	}
+}
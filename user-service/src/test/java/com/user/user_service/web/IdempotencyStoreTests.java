@@ -0,0 +1,131 @@
+package com.user.user_service.web;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyStoreTests {
+
+	private static final String ID = "POST /test cle-1";
+
+	@Mock
+	private MongoTemplate mongoTemplate;
+
+	private IdempotencyStore store;
+
+	@BeforeEach
+	void setUp() {
+		store = new IdempotencyStore();
+		ReflectionTestUtils.setField(store, "mongoTemplate", mongoTemplate);
+		ReflectionTestUtils.setField(store, "objectMapper", new ObjectMapper());
+		ReflectionTestUtils.setField(store, "ttl", Duration.ofMinutes(10));
+		ReflectionTestUtils.setField(store, "waitTimeout", Duration.ofSeconds(5));
+		ReflectionTestUtils.setField(store, "processingTimeout", Duration.ofMinutes(1));
+	}
+
+	@Test
+	void requestWithoutKeyIsNotRecorded() {
+		AtomicInteger calls = new AtomicInteger();
+
+		store.execute("POST /test", null, "requete", () -> created(calls));
+
+		assertEquals(1, calls.get());
+		verifyNoInteractions(mongoTemplate);
+	}
+
+	@Test
+	void retryWithTheSameKeyReplaysTheRecordedResponse() {
+		AtomicInteger calls = new AtomicInteger();
+		ResponseEntity<String> first = store.execute("POST /test", "cle-1", "requete", () -> created(calls));
+		Document recorded = recorded();
+
+		// La tentative arrive sur une autre instance : la clé est déjà réservée, la réponse est relue dans MongoDB
+		when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(IdempotencyStore.COLLECTION)))
+				.thenThrow(new DuplicateKeyException("clé déjà réservée"));
+		when(mongoTemplate.findById(ID, Document.class, IdempotencyStore.COLLECTION)).thenReturn(recorded);
+		ResponseEntity<String> retry = store.execute("POST /test", "cle-1", "requete", () -> created(calls));
+
+		assertEquals(1, calls.get());
+		assertEquals(HttpStatus.CREATED, retry.getStatusCode());
+		assertEquals(first.getBody(), retry.getBody());
+		assertNull(first.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+		assertEquals("true", retry.getHeaders().getFirst(IdempotencyStore.REPLAYED_HEADER));
+		assertThrows(IllegalArgumentException.class,
+				() -> store.execute("POST /test", "cle-1", "autre requete", () -> created(calls)));
+	}
+
+	@Test
+	void serverErrorsAreNotKept() {
+		AtomicInteger calls = new AtomicInteger();
+
+		store.execute("POST /test", "cle-2", "requete", () -> {
+			calls.incrementAndGet();
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("indisponible");
+		});
+
+		verify(mongoTemplate).remove(any(Query.class), eq(IdempotencyStore.COLLECTION));
+		verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(IdempotencyStore.COLLECTION));
+	}
+
+	@Test
+	void duplicateWaitsForTheRequestInProgress() {
+		AtomicInteger calls = new AtomicInteger();
+		store.execute("POST /test", "cle-1", "requete", () -> created(calls));
+		Document recorded = recorded();
+		Document inProgress = new Document(recorded);
+		inProgress.remove("reponse");
+
+		when(mongoTemplate.upsert(any(Query.class), any(Update.class), eq(IdempotencyStore.COLLECTION)))
+				.thenThrow(new DuplicateKeyException("clé déjà réservée"));
+		when(mongoTemplate.findById(ID, Document.class, IdempotencyStore.COLLECTION))
+				.thenReturn(inProgress, inProgress, recorded);
+		ResponseEntity<String> duplicate = store.execute("POST /test", "cle-1", "requete", () -> created(calls));
+
+		assertEquals(1, calls.get());
+		assertEquals("pret-1", duplicate.getBody());
+	}
+
+	// Document de la clé tel que l'a écrit le premier passage : réservation (upsert) puis réponse (updateFirst)
+	private Document recorded() {
+		ArgumentCaptor<Update> claim = ArgumentCaptor.forClass(Update.class);
+		verify(mongoTemplate).upsert(any(Query.class), claim.capture(), eq(IdempotencyStore.COLLECTION));
+		ArgumentCaptor<Update> response = ArgumentCaptor.forClass(Update.class);
+		verify(mongoTemplate).updateFirst(any(Query.class), response.capture(), eq(IdempotencyStore.COLLECTION));
+		Document set = (Document) claim.getValue().getUpdateObject().get("$set");
+		return new Document(set)
+				.append(IdempotencyStore.EXPIRES_AT, Date.from(Instant.now().plusSeconds(600)))
+				.append("reponse", ((Document) response.getValue().getUpdateObject().get("$set")).get("reponse"));
+	}
+
+	private static ResponseEntity<String> created(AtomicInteger calls) {
+		return ResponseEntity.status(HttpStatus.CREATED).body("pret-" + calls.incrementAndGet());
+	}
+}